@@ -0,0 +1,54 @@
+package lab1;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// AlphabetClassifier on the incubating Vector API: a whole vector of characters (16 on AVX2, 32 on
+// AVX-512) is compared with each alphabet symbol and blended into the class vector, lanes left at -1
+// are outside the alphabet. only loaded reflectively. in IntelliJ src-vector is the lfalab-vector module,
+// compiled with the flag from .idea/compiler.xml and run through "ClassificationBenchmark (vector)";
+// on the command line build and run with
+//   javac --add-modules jdk.incubator.vector -d out src/lab1/*.java src-vector/lab1/*.java
+//   java --add-modules jdk.incubator.vector -cp out lab1.ClassificationBenchmark
+final class VectorAlphabetClassifier extends AlphabetClassifier {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private final short[] symbols;
+    private final AlphabetClassifier tail;
+
+    VectorAlphabetClassifier(char[] symbols) {
+        if (symbols.length > MAX_VECTOR_ALPHABET) {
+            throw new IllegalArgumentException("At most " + MAX_VECTOR_ALPHABET + " symbols, got " + symbols.length);
+        }
+        this.symbols = new short[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            this.symbols[i] = (short) symbols[i];
+        }
+        this.tail = AlphabetClassifier.scalar(symbols);
+    }
+
+    @Override
+    int classify(char[] input, int from, int to, short[] out) {
+        int lanes = SPECIES.length();
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+            ShortVector chars = ShortVector.fromCharArray(SPECIES, input, i);
+            ShortVector classes = ShortVector.broadcast(SPECIES, (short) -1);
+            for (int c = 0; c < symbols.length; c++) {
+                classes = classes.blend((short) c, chars.eq(symbols[c]));
+            }
+            VectorMask<Short> outside = classes.lt((short) 0);
+            if (outside.anyTrue()) {
+                return i + outside.firstTrue();
+            }
+            classes.intoArray(out, i);
+        }
+        return tail.classify(input, i, to, out);
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package lab1;
+
+import java.util.Arrays;
+
+// maps input characters to dense alphabet indices ahead of the DFA loop, and finds the first character
+// outside the alphabet. the vectorized version lives in src-vector and needs jdk.incubator.vector at
+// compile and run time; when it is not on the class path or the module is not resolved, create()
+// quietly returns the scalar version
+abstract class AlphabetClassifier {
+    static final int MAX_VECTOR_ALPHABET = 16;
+
+    private static final String VECTOR_CLASS = "lab1.VectorAlphabetClassifier";
+
+    // writes the class of input[i] into out[i] for i in [from, to) and returns -1, or returns the index of
+    // the first character outside the alphabet (out is then only partly written)
+    abstract int classify(char[] input, int from, int to, short[] out);
+
+    abstract boolean isVectorized();
+
+    // symbols are the alphabet in class order
+    static AlphabetClassifier create(char[] symbols) {
+        if (symbols.length <= MAX_VECTOR_ALPHABET) {
+            try {
+                return (AlphabetClassifier) Class.forName(VECTOR_CLASS)
+                        .getDeclaredConstructor(char[].class).newInstance((Object) symbols.clone());
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not compiled in, or started without --add-modules jdk.incubator.vector
+            }
+        }
+        return scalar(symbols);
+    }
+
+    static AlphabetClassifier scalar(char[] symbols) {
+        return new Scalar(symbols);
+    }
+
+    private static final class Scalar extends AlphabetClassifier {
+        private final short[] symbolClass;      // char -> class, -1 if not in alphabet
+
+        Scalar(char[] symbols) {
+            int maxChar = 0;
+            for (char symbol : symbols) {
+                maxChar = Math.max(maxChar, symbol);
+            }
+            this.symbolClass = new short[maxChar + 1];
+            Arrays.fill(symbolClass, (short) -1);
+            for (int i = 0; i < symbols.length; i++) {
+                symbolClass[symbols[i]] = (short) i;
+            }
+        }
+
+        @Override
+        int classify(char[] input, int from, int to, short[] out) {
+            short[] symbolClass = this.symbolClass;
+            for (int i = from; i < to; i++) {
+                char symbol = input[i];
+                short cls = symbol < symbolClass.length ? symbolClass[symbol] : -1;
+                if (cls < 0) {
+                    return i;
+                }
+                out[i] = cls;
+            }
+            return -1;
+        }
+
+        @Override
+        boolean isVectorized() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package lab1;
+
+// matcher for long inputs: characters are copied out in blocks, each block is classified in one pass by
+// an AlphabetClassifier (vectorized when the Vector API is available) and the DFA loop then only indexes
+// the dense table. not thread-safe, the buffers are reused between calls
+class BlockMatcher {
+    static final int BLOCK = 4096;
+    private static final int DEAD = -1;
+
+    private final AlphabetClassifier classifier;
+    private final int[] table;          // state * alphabetSize + symbol -> next state * alphabetSize, or DEAD
+    private final int alphabetSize;
+    private final boolean[] accepting;
+    private final int startState;
+
+    private final char[] chars = new char[BLOCK];
+    private final short[] classes = new short[BLOCK];
+
+    BlockMatcher(AlphabetClassifier classifier, int[] table, int alphabetSize, boolean[] accepting, int startState) {
+        // states are stored pre-multiplied, which takes the multiplication out of the per-character chain
+        this.classifier = classifier;
+        this.table = new int[table.length];
+        for (int i = 0; i < table.length; i++) {
+            this.table[i] = table[i] == DEAD ? DEAD : table[i] * alphabetSize;
+        }
+        this.alphabetSize = alphabetSize;
+        this.accepting = accepting;
+        this.startState = startState * alphabetSize;
+    }
+
+    public boolean matches(CharSequence input) {
+        int[] table = this.table;
+        short[] classes = this.classes;
+        int state = startState;
+
+        for (int from = 0, n = input.length(); from < n; from += BLOCK) {
+            int length = Math.min(BLOCK, n - from);
+            copy(input, from, length);
+            if (classifier.classify(chars, 0, length, classes) >= 0) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                state = table[state + classes[i]];
+                if (state == DEAD) {
+                    return false;
+                }
+            }
+        }
+
+        return accepting[alphabetSize == 0 ? state : state / alphabetSize];
+    }
+
+    public boolean isVectorized() {
+        return classifier.isVectorized();
+    }
+
+    private void copy(CharSequence input, int from, int length) {
+        if (input instanceof String string) {
+            string.getChars(from, from + length, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = input.charAt(from + i);
+            }
+        }
+    }
+}
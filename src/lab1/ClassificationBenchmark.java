@@ -0,0 +1,67 @@
+package lab1;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// long accepted inputs through the HashSet-based reference, the compiled table, and the block matcher
+// with a scalar and (when available) a vectorized alphabet pre-pass. run with
+// --add-modules jdk.incubator.vector and src-vector on the class path to get the vectorized column,
+// see VectorAlphabetClassifier for the build steps
+public class ClassificationBenchmark {
+    private static final int[] LENGTHS = {1_000, 64_000, 1_000_000};
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        Set<String> VN = new HashSet<>(Arrays.asList("S", "A", "B", "C"));
+        Set<Character> VT = new HashSet<>(Arrays.asList('a', 'b', 'c', 'd'));
+        Map<String, List<String>> P = new HashMap<>();
+        P.put("S", Arrays.asList("dA"));
+        P.put("A", Arrays.asList("d", "aB"));
+        P.put("B", Arrays.asList("bC"));
+        P.put("C", Arrays.asList("cA", "aS"));
+        FiniteAutomaton automaton = new Grammar(VN, VT, P, "S").toFiniteAutomaton();
+        CompiledAutomaton compiled = automaton.compile();
+        BlockMatcher scalar = compiled.blockMatcher(AlphabetClassifier.scalar(compiled.symbols()));
+        BlockMatcher best = compiled.blockMatcher();
+        System.out.println("Vector API pre-pass available: " + best.isVectorized());
+
+        for (int length : LENGTHS) {
+            // d(abc)*d is in the language, so every matcher has to read the whole input
+            String accepted = "d" + "abc".repeat((length - 2) / 3) + "d";
+            String rejected = accepted.substring(0, accepted.length() - 1) + "x";
+            for (String input : new String[]{accepted, rejected}) {
+                boolean expected = automaton.stringBelongToLanguage(input);
+                if (compiled.matches(input) != expected || scalar.matches(input) != expected || best.matches(input) != expected) {
+                    throw new IllegalStateException("Matchers disagree on an input of length " + input.length());
+                }
+            }
+
+            System.out.printf("%nInput length %,d%n", accepted.length());
+            System.out.printf("  HashSet reference:    %8.1f M chars/s%n", throughput(automaton::stringBelongToLanguage, accepted));
+            System.out.printf("  compiled table:       %8.1f M chars/s%n", throughput(compiled::matches, accepted));
+            System.out.printf("  blocks, scalar:       %8.1f M chars/s%n", throughput(scalar::matches, accepted));
+            if (best.isVectorized()) {
+                System.out.printf("  blocks, Vector API:   %8.1f M chars/s%n", throughput(best::matches, accepted));
+            }
+        }
+    }
+
+    private static double throughput(Predicate<String> matcher, String input) {
+        long accepted = 0;
+        long chars = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            if (matcher.test(input)) {
+                accepted++;
+            }
+            chars += input.length();
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        if (accepted < 0) {
+            System.out.println(accepted);
+        }
+        return chars / (elapsed / 1e3);
+    }
+}
@@ -0,0 +1,123 @@
+package lab1;
+
+import java.util.*;
+
+class CompiledAutomaton {
+    private static final int DEAD = -1;
+
+    private final int[] symbolClass;   // char -> dense alphabet index, -1 if not in alphabet
+    private final int alphabetSize;
+    private final int[] table;         // state * alphabetSize + symbol -> next state
+    private final boolean[] accepting;
+    private final int startState;
+
+    CompiledAutomaton(Set<String> states, Set<Character> alphabet, Map<String, Map<Character, String>> transitions,
+                      String startState, Set<String> finalStates) {
+        // intern states, the start state always gets index 0
+        Map<String, Integer> stateIndex = new HashMap<>();
+        stateIndex.put(startState, 0);
+        for (String state : states) {
+            stateIndex.putIfAbsent(state, stateIndex.size());
+        }
+        for (Map<Character, String> row : transitions.values()) {
+            for (String target : row.values()) {
+                stateIndex.putIfAbsent(target, stateIndex.size());
+            }
+        }
+        for (String state : transitions.keySet()) {
+            stateIndex.putIfAbsent(state, stateIndex.size());
+        }
+
+        int maxChar = 0;
+        for (char symbol : alphabet) {
+            maxChar = Math.max(maxChar, symbol);
+        }
+        this.symbolClass = new int[maxChar + 1];
+        Arrays.fill(symbolClass, DEAD);
+        List<Character> sortedAlphabet = new ArrayList<>(alphabet);
+        Collections.sort(sortedAlphabet);
+        for (int i = 0; i < sortedAlphabet.size(); i++) {
+            symbolClass[sortedAlphabet.get(i)] = i;
+        }
+        this.alphabetSize = sortedAlphabet.size();
+
+        int stateCount = stateIndex.size();
+        this.table = new int[stateCount * alphabetSize];
+        Arrays.fill(table, DEAD);
+        for (var entry : transitions.entrySet()) {
+            int from = stateIndex.get(entry.getKey());
+            for (var transition : entry.getValue().entrySet()) {
+                char symbol = transition.getKey();
+                // transitions on symbols outside the alphabet are unreachable in the reference path as well
+                if (symbol < symbolClass.length && symbolClass[symbol] != DEAD) {
+                    table[from * alphabetSize + symbolClass[symbol]] = stateIndex.get(transition.getValue());
+                }
+            }
+        }
+
+        this.accepting = new boolean[stateCount];
+        for (String state : finalStates) {
+            Integer index = stateIndex.get(state);
+            if (index != null) {
+                accepting[index] = true;
+            }
+        }
+        this.startState = 0;
+    }
+
+    public boolean matches(CharSequence input) {
+        return matches(input, 0, input.length());
+    }
+
+    public boolean matches(CharSequence input, int from, int to) {
+        int[] symbolClass = this.symbolClass;
+        int[] table = this.table;
+        int alphabetSize = this.alphabetSize;
+        int state = startState;
+
+        for (int i = from; i < to; i++) {
+            char symbol = input.charAt(i);
+            if (symbol >= symbolClass.length) {
+                return false;
+            }
+            int cls = symbolClass[symbol];
+            if (cls == DEAD) {
+                return false;
+            }
+            state = table[state * alphabetSize + cls];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+
+        return accepting[state];
+    }
+
+    // matcher for long inputs that classifies whole blocks before running the table
+    public BlockMatcher blockMatcher() {
+        return blockMatcher(AlphabetClassifier.create(symbols()));
+    }
+
+    BlockMatcher blockMatcher(AlphabetClassifier classifier) {
+        return new BlockMatcher(classifier, table, alphabetSize, accepting, startState);
+    }
+
+    // the alphabet in class order
+    char[] symbols() {
+        char[] symbols = new char[alphabetSize];
+        for (int ch = 0; ch < symbolClass.length; ch++) {
+            if (symbolClass[ch] != DEAD) {
+                symbols[symbolClass[ch]] = (char) ch;
+            }
+        }
+        return symbols;
+    }
+
+    public int getStateCount() {
+        return accepting.length;
+    }
+
+    public int getAlphabetSize() {
+        return alphabetSize;
+    }
+}
@@ -36,4 +36,9 @@ class FiniteAutomaton {
         return finalStates.contains(currentState);
     }
 
+    // table-driven form of this automaton, stringBelongToLanguage stays the reference implementation
+    public CompiledAutomaton compile() {
+        return new CompiledAutomaton(states, alphabet, transitions, startState, finalStates);
+    }
+
 }
\ No newline at end of file
@@ -24,5 +24,12 @@ public class Main {
         System.out.println("\nTesting Finite Automaton:");
         System.out.println("dd belongs to language: " + automaton.stringBelongToLanguage("dd"));
         System.out.println("aaaa belongs to language: " + automaton.stringBelongToLanguage("aaaa"));
+
+        CompiledAutomaton compiled = automaton.compile();
+
+        System.out.println("\nTesting Compiled Automaton:");
+        System.out.println("dd belongs to language: " + compiled.matches("dd"));
+        System.out.println("dabcd belongs to language: " + compiled.matches("dabcd"));
+        System.out.println("aaaa belongs to language: " + compiled.matches("aaaa"));
     }
 }
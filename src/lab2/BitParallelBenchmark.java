@@ -0,0 +1,118 @@
+package lab2;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// NFA simulation on the transition maps vs the bit-parallel matcher, with the lazy DFA as a reference,
+// on the lab grammar's automaton and on random NFAs below and above the one-word limit
+public class BitParallelBenchmark {
+    private static final int INPUTS = 2_000;
+    private static final int INPUT_LENGTH = 200;
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        run("Grammar automaton", new Grammar().toFiniteAutomaton(), "ab", random);
+        run("Random NFA, 40 states", generate(random, 40, "abcd"), "abcd", random);
+        run("Random NFA, 64 states", generate(random, 64, "abcd"), "abcd", random);
+        run("Random NFA, 300 states", generate(random, 300, "abcd"), "abcd", random);
+    }
+
+    private static void run(String name, FiniteAutomaton fa, String alphabet, Random random) {
+        BitParallelMatcher bitParallel = fa.bitParallelMatcher();
+        LazyDfaMatcher lazy = fa.lazyMatcher(256);
+        String[] inputs = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = randomString(random, alphabet, 1 + random.nextInt(INPUT_LENGTH));
+            if (simulate(fa, inputs[i]) != bitParallel.matches(inputs[i]) || lazy.matches(inputs[i]) != bitParallel.matches(inputs[i])) {
+                throw new IllegalStateException("Matchers disagree on " + inputs[i]);
+            }
+        }
+
+        System.out.printf("%n%s (%d states, %s)%n", name, fa.getStates().size(),
+                bitParallel.isSingleWord() ? "one word" : "long[] blocks");
+        System.out.printf("  map simulation: %10.1f M chars/s%n", throughput(input -> simulate(fa, input), inputs));
+        System.out.printf("  bit-parallel:   %10.1f M chars/s%n", throughput(bitParallel::matches, inputs));
+        System.out.printf("  lazy DFA:       %10.1f M chars/s%n", throughput(lazy::matches, inputs));
+    }
+
+    // set-of-names simulation straight on the transition maps
+    private static boolean simulate(FiniteAutomaton fa, String input) {
+        Set<String> current = new HashSet<>(Collections.singleton(fa.getStartState()));
+        for (int i = 0; i < input.length() && !current.isEmpty(); i++) {
+            Set<String> next = new HashSet<>();
+            for (String state : current) {
+                Map<Character, Set<String>> row = fa.getTransitions().get(state);
+                if (row != null && row.containsKey(input.charAt(i))) {
+                    next.addAll(row.get(input.charAt(i)));
+                }
+            }
+            current = next;
+        }
+        for (String state : current) {
+            if (fa.getFinalStates().contains(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // every state gets one or two targets per symbol, so the active set stays mixed
+    static FiniteAutomaton generate(Random random, int states, String alphabet) {
+        Set<String> q = new HashSet<>();
+        Set<Character> sigma = new HashSet<>();
+        Map<String, Map<Character, Set<String>>> delta = new HashMap<>();
+        Set<String> f = new HashSet<>();
+        for (char symbol : alphabet.toCharArray()) {
+            sigma.add(symbol);
+        }
+
+        for (int s = 0; s < states; s++) {
+            String name = "s" + s;
+            q.add(name);
+            if (random.nextInt(4) == 0) {
+                f.add(name);
+            }
+            Map<Character, Set<String>> row = new HashMap<>();
+            for (char symbol : alphabet.toCharArray()) {
+                Set<String> targets = new HashSet<>();
+                for (int t = 1 + random.nextInt(2); t > 0; t--) {
+                    targets.add("s" + random.nextInt(states));
+                }
+                row.put(symbol, targets);
+            }
+            delta.put(name, row);
+        }
+
+        return new FiniteAutomaton(q, sigma, delta, "s0", f);
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static double throughput(Predicate<String> matcher, String[] inputs) {
+        long accepted = 0;
+        long chars = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (String input : inputs) {
+                if (matcher.test(input)) {
+                    accepted++;
+                }
+                chars += input.length();
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        if (accepted < 0) {
+            System.out.println(accepted);
+        }
+        return chars / (elapsed / 1e3);
+    }
+}
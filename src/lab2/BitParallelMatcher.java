@@ -0,0 +1,156 @@
+package lab2;
+
+import java.util.Arrays;
+
+// NFA simulation with the active state set packed into machine words. up to 64 states the set is one
+// long and a step is a few table lookups: the set is cut into bytes, and for every symbol and byte value
+// the union of successors is precomputed, so the next set is the OR of one entry per non-zero byte.
+// larger automata keep the set in long[] blocks and OR in one successor row per active state.
+// immutable, safe to share between threads
+public class BitParallelMatcher {
+    static final int MAX_SINGLE_WORD_STATES = 64;
+
+    private final int[] symbolClass;    // char -> symbol index, -1 if not in alphabet
+    private final int k;
+    private final int words;
+
+    // single word: (symbol * chunks + chunk) * 256 + byte value -> successors of those states
+    private final int chunks;
+    private final long[] chunkTable;
+    private final long startMask;
+    private final long acceptMask;
+
+    // long[] blocks: (state * k + symbol) * words -> successor set of one state
+    private final long[] successors;
+    private final long[] start;
+    private final long[] accept;
+
+    BitParallelMatcher(IndexedNfa nfa) {
+        int n = nfa.stateCount();
+        this.symbolClass = nfa.symbolClass;
+        this.k = nfa.symbolCount();
+        this.words = Math.max(1, (n + 63) >>> 6);
+
+        long[] rows = new long[n * k * words];
+        for (int state = 0; state < n; state++) {
+            for (int symbol = 0; symbol < k; symbol++) {
+                int base = (state * k + symbol) * words;
+                for (int target : nfa.targets(state, symbol)) {
+                    rows[base + (target >>> 6)] |= 1L << target;
+                }
+            }
+        }
+        long[] startSet = new long[words];
+        startSet[nfa.start >>> 6] |= 1L << nfa.start;
+        long[] acceptSet = new long[words];
+        for (int state = 0; state < n; state++) {
+            if (nfa.accepting[state]) {
+                acceptSet[state >>> 6] |= 1L << state;
+            }
+        }
+
+        if (n <= MAX_SINGLE_WORD_STATES) {
+            this.chunks = Math.max(1, (n + 7) >>> 3);
+            this.chunkTable = new long[k * chunks * 256];
+            for (int symbol = 0; symbol < k; symbol++) {
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    int base = (symbol * chunks + chunk) * 256;
+                    // each byte value extends a smaller one by its lowest set bit
+                    for (int value = 1; value < 256; value++) {
+                        int low = Integer.numberOfTrailingZeros(value);
+                        int state = chunk * 8 + low;
+                        long row = state < n ? rows[state * k + symbol] : 0L;
+                        chunkTable[base + value] = chunkTable[base + (value & (value - 1))] | row;
+                    }
+                }
+            }
+            this.startMask = startSet[0];
+            this.acceptMask = acceptSet[0];
+            this.successors = null;
+            this.start = null;
+            this.accept = null;
+        } else {
+            this.chunks = 0;
+            this.chunkTable = null;
+            this.startMask = 0L;
+            this.acceptMask = 0L;
+            this.successors = rows;
+            this.start = startSet;
+            this.accept = acceptSet;
+        }
+    }
+
+    public boolean matches(CharSequence input) {
+        return chunkTable != null ? matchesSingleWord(input) : matchesBlocks(input);
+    }
+
+    // true when the active set fits in one long
+    public boolean isSingleWord() {
+        return chunkTable != null;
+    }
+
+    private boolean matchesSingleWord(CharSequence input) {
+        int[] symbolClass = this.symbolClass;
+        long[] table = this.chunkTable;
+        int chunks = this.chunks;
+        long active = startMask;
+
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char ch = input.charAt(i);
+            int symbol = ch < symbolClass.length ? symbolClass[ch] : -1;
+            if (symbol < 0) {
+                return false;
+            }
+            long next = 0L;
+            for (int base = symbol * chunks * 256; active != 0; active >>>= 8, base += 256) {
+                next |= table[base + (int) (active & 0xFF)];
+            }
+            if (next == 0L) {
+                return false;
+            }
+            active = next;
+        }
+
+        return (active & acceptMask) != 0L;
+    }
+
+    private boolean matchesBlocks(CharSequence input) {
+        long[] active = start.clone();
+        long[] next = new long[words];
+
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char ch = input.charAt(i);
+            int symbol = ch < symbolClass.length ? symbolClass[ch] : -1;
+            if (symbol < 0) {
+                return false;
+            }
+            Arrays.fill(next, 0L);
+            long any = 0L;
+            for (int w = 0; w < words; w++) {
+                for (long bits = active[w]; bits != 0; bits &= bits - 1) {
+                    int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    int base = (state * k + symbol) * words;
+                    for (int v = 0; v < words; v++) {
+                        next[v] |= successors[base + v];
+                    }
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                any |= next[w];
+            }
+            if (any == 0L) {
+                return false;
+            }
+            long[] swap = active;
+            active = next;
+            next = swap;
+        }
+
+        for (int w = 0; w < words; w++) {
+            if ((active[w] & accept[w]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package lab2;
+
+// table-driven recognizer for a FiniteAutomaton: determinized, minimized and then matched with one
+// array lookup per character. immutable, safe to share between threads
+public class DfaMatcher {
+    private final DfaTable dfa;
+
+    DfaMatcher(DfaTable dfa) {
+        this.dfa = dfa;
+    }
+
+    public boolean matches(CharSequence input) {
+        return dfa.matches(input);
+    }
+
+    public int stateCount() {
+        return dfa.stateCount();
+    }
+}
@@ -0,0 +1,86 @@
+package lab2;
+
+import java.util.*;
+
+// deterministic automaton stored as a flat transition table, the start state is always 0
+class DfaTable {
+    static final int DEAD = -1;
+
+    final char[] symbols;
+    final int[] symbolClass;    // char -> symbol index, -1 if not in alphabet
+    final int[] table;          // state * symbols.length + symbol -> next state or DEAD
+    final boolean[] accepting;
+
+    DfaTable(char[] symbols, int[] symbolClass, int[] table, boolean[] accepting) {
+        this.symbols = symbols;
+        this.symbolClass = symbolClass;
+        this.table = table;
+        this.accepting = accepting;
+    }
+
+    boolean matches(CharSequence input) {
+        int[] symbolClass = this.symbolClass;
+        int[] table = this.table;
+        int k = symbols.length;
+        int state = 0;
+
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char symbol = input.charAt(i);
+            if (symbol >= symbolClass.length || symbolClass[symbol] < 0) {
+                return false;
+            }
+            state = table[state * k + symbolClass[symbol]];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+
+        return accepting[state];
+    }
+
+    int stateCount() {
+        return accepting.length;
+    }
+
+    int symbolCount() {
+        return symbols.length;
+    }
+
+    int symbolIndex(char symbol) {
+        return symbol < symbolClass.length ? symbolClass[symbol] : -1;
+    }
+
+    int next(int state, int symbol) {
+        return table[state * symbols.length + symbol];
+    }
+
+    // bytes held by the arrays backing this table, headers excluded
+    long footprint() {
+        return 4L * table.length + 4L * symbolClass.length + 2L * symbols.length + accepting.length;
+    }
+
+    FiniteAutomaton toFiniteAutomaton(Set<Character> alphabet) {
+        Map<String, Map<Character, Set<String>>> transitions = new HashMap<>();
+        Set<String> states = new HashSet<>();
+        Set<String> finalStates = new HashSet<>();
+        int k = symbols.length;
+
+        for (int state = 0; state < accepting.length; state++) {
+            String name = "q" + state;
+            states.add(name);
+            Map<Character, Set<String>> row = new HashMap<>();
+            for (int symbol = 0; symbol < k; symbol++) {
+                int target = table[state * k + symbol];
+                if (target != DEAD) {
+                    row.put(symbols[symbol], new HashSet<>(Collections.singleton("q" + target)));
+                }
+            }
+            transitions.put(name, row);
+            if (accepting[state]) {
+                finalStates.add(name);
+            }
+        }
+
+        return new FiniteAutomaton(states, alphabet, transitions, "q0", finalStates);
+    }
+}
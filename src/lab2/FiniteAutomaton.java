@@ -52,8 +52,9 @@ public class FiniteAutomaton {
                     }
                 }
                 if (!newSet.isEmpty()) {
-                    dfaStates.putIfAbsent(newSet, "q" + dfaStates.size());
-                    queue.add(newSet);
+                    if (dfaStates.putIfAbsent(newSet, "q" + dfaStates.size()) == null) {
+                        queue.add(newSet);
+                    }
                     dfaTransitions.get(dfaStateName).put(symbol, dfaStates.get(newSet));
                 }
             }
@@ -71,6 +72,33 @@ public class FiniteAutomaton {
         return new FiniteAutomaton(new HashSet<>(dfaStates.values()), alphabet, transformTransitions(dfaTransitions), "q0", dfaFinalStates);
     }
 
+    // same result as convertNdfaToDfa, but state sets are long[] bitsets and every subset is visited once
+    public FiniteAutomaton convertNdfaToDfaBitset() {
+        return new SubsetConstruction(new IndexedNfa(this)).run().toFiniteAutomaton(alphabet);
+    }
+
+    // determinizes if needed, then merges equivalent states with Hopcroft's algorithm
+    public FiniteAutomaton minimize() {
+        DfaTable dfa = new SubsetConstruction(new IndexedNfa(this)).run();
+        return new HopcroftMinimizer(dfa).minimize().toFiniteAutomaton(alphabet);
+    }
+
+    // minimal DFA as a transition table, for matching many strings against the same automaton
+    public DfaMatcher compileMatcher() {
+        DfaTable dfa = new SubsetConstruction(new IndexedNfa(this)).run();
+        return new DfaMatcher(new HopcroftMinimizer(dfa).minimize());
+    }
+
+    // NFA simulation over bitsets, no determinization, cheap to build for small automata
+    public BitParallelMatcher bitParallelMatcher() {
+        return new BitParallelMatcher(new IndexedNfa(this));
+    }
+
+    // matcher that determinizes lazily while scanning, keeping at most cacheCapacity DFA states
+    public LazyDfaMatcher lazyMatcher(int cacheCapacity) {
+        return new LazyDfaMatcher(new IndexedNfa(this), cacheCapacity);
+    }
+
     private Map<String, Map<Character, Set<String>>> transformTransitions(Map<String, Map<Character, String>> dfaTransitions) {
         Map<String, Map<Character, Set<String>>> transformed = new HashMap<>();
         for (var entry : dfaTransitions.entrySet()) {
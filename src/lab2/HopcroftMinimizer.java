@@ -0,0 +1,235 @@
+package lab2;
+
+import java.util.*;
+
+// Hopcroft's partition refinement, O(n * |Σ| * log n)
+class HopcroftMinimizer {
+    private final DfaTable dfa;
+    private final int n;        // states including the dead sink
+    private final int k;
+
+    // inverse transitions in CSR form, (symbol, target) -> predecessors
+    private int[] inverseStart;
+    private int[] inverse;
+
+    // partition: states of block b are elements[blockStart[b] .. blockEnd[b])
+    private final int[] elements;
+    private final int[] location;
+    private final int[] blockOf;
+    private final int[] blockStart;
+    private final int[] blockEnd;
+    private final int[] markedCount;
+    private int blockCount;
+
+    private final boolean[] inWorklist;     // block * k + symbol
+    private final int[] worklist;
+    private int worklistSize;
+
+    HopcroftMinimizer(DfaTable dfa) {
+        this.dfa = dfa;
+        this.n = dfa.stateCount() + 1;
+        this.k = dfa.symbolCount();
+        this.elements = new int[n];
+        this.location = new int[n];
+        this.blockOf = new int[n];
+        this.blockStart = new int[n];
+        this.blockEnd = new int[n];
+        this.markedCount = new int[n];
+        this.inWorklist = new boolean[n * k];
+        this.worklist = new int[n * k];
+    }
+
+    DfaTable minimize() {
+        buildInverse();
+        initialPartition();
+        refine();
+        return buildResult();
+    }
+
+    // missing transitions go to an explicit sink so the transition function is total
+    private int next(int state, int symbol) {
+        int sink = n - 1;
+        if (state == sink) {
+            return sink;
+        }
+        int target = dfa.next(state, symbol);
+        return target == DfaTable.DEAD ? sink : target;
+    }
+
+    private void buildInverse() {
+        inverseStart = new int[k * n + 1];
+        for (int state = 0; state < n; state++) {
+            for (int symbol = 0; symbol < k; symbol++) {
+                inverseStart[symbol * n + next(state, symbol) + 1]++;
+            }
+        }
+        for (int i = 0; i < k * n; i++) {
+            inverseStart[i + 1] += inverseStart[i];
+        }
+        inverse = new int[k * n];
+        int[] fill = Arrays.copyOf(inverseStart, k * n);
+        for (int state = 0; state < n; state++) {
+            for (int symbol = 0; symbol < k; symbol++) {
+                inverse[fill[symbol * n + next(state, symbol)]++] = state;
+            }
+        }
+    }
+
+    private void initialPartition() {
+        int acceptingCount = 0;
+        for (int state = 0; state < n - 1; state++) {
+            if (dfa.accepting[state]) {
+                acceptingCount++;
+            }
+        }
+
+        // accepting states first, the rest (sink included) after them
+        int front = 0;
+        int back = acceptingCount;
+        for (int state = 0; state < n; state++) {
+            int position = state < n - 1 && dfa.accepting[state] ? front++ : back++;
+            elements[position] = state;
+            location[state] = position;
+        }
+
+        if (acceptingCount == 0 || acceptingCount == n) {
+            createBlock(0, n);
+            return;
+        }
+        int accepting = createBlock(0, acceptingCount);
+        int rejecting = createBlock(acceptingCount, n);
+        int smaller = acceptingCount <= n - acceptingCount ? accepting : rejecting;
+        for (int symbol = 0; symbol < k; symbol++) {
+            push(smaller, symbol);
+        }
+    }
+
+    private int createBlock(int start, int end) {
+        int block = blockCount++;
+        blockStart[block] = start;
+        blockEnd[block] = end;
+        for (int i = start; i < end; i++) {
+            blockOf[elements[i]] = block;
+        }
+        return block;
+    }
+
+    private void push(int block, int symbol) {
+        if (!inWorklist[block * k + symbol]) {
+            inWorklist[block * k + symbol] = true;
+            worklist[worklistSize++] = block * k + symbol;
+        }
+    }
+
+    private void refine() {
+        int[] splitter = new int[n];
+        int[] touched = new int[n];
+
+        while (worklistSize > 0) {
+            int entry = worklist[--worklistSize];
+            inWorklist[entry] = false;
+            int block = entry / k;
+            int symbol = entry % k;
+
+            // the splitter block itself may be reordered while marking, so work on a copy
+            int splitterSize = blockEnd[block] - blockStart[block];
+            System.arraycopy(elements, blockStart[block], splitter, 0, splitterSize);
+
+            int touchedCount = 0;
+            for (int i = 0; i < splitterSize; i++) {
+                int target = splitter[i];
+                for (int j = inverseStart[symbol * n + target]; j < inverseStart[symbol * n + target + 1]; j++) {
+                    int state = inverse[j];
+                    int b = blockOf[state];
+                    int markedEnd = blockStart[b] + markedCount[b];
+                    if (location[state] < markedEnd) {
+                        continue;
+                    }
+                    swap(location[state], markedEnd);
+                    if (markedCount[b]++ == 0) {
+                        touched[touchedCount++] = b;
+                    }
+                }
+            }
+
+            for (int t = 0; t < touchedCount; t++) {
+                int b = touched[t];
+                int marked = markedCount[b];
+                markedCount[b] = 0;
+                if (marked == blockEnd[b] - blockStart[b]) {
+                    continue;
+                }
+
+                int start = blockStart[b];
+                blockStart[b] = start + marked;
+                int split = createBlock(start, start + marked);
+                int rest = blockEnd[b] - blockStart[b];
+
+                for (int d = 0; d < k; d++) {
+                    if (inWorklist[b * k + d]) {
+                        push(split, d);
+                    } else {
+                        push(marked <= rest ? split : b, d);
+                    }
+                }
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int a = elements[i];
+        int b = elements[j];
+        elements[i] = b;
+        elements[j] = a;
+        location[b] = i;
+        location[a] = j;
+    }
+
+    private DfaTable buildResult() {
+        int sinkBlock = blockOf[n - 1];
+        int[] newIndex = new int[blockCount];
+        Arrays.fill(newIndex, DfaTable.DEAD);
+
+        // number blocks in BFS order from the start state, the sink block is dropped
+        int[] order = new int[blockCount];
+        int count = 0;
+        if (blockOf[0] != sinkBlock) {
+            newIndex[blockOf[0]] = count;
+            order[count++] = blockOf[0];
+        }
+        for (int head = 0; head < count; head++) {
+            int representative = elements[blockStart[order[head]]];
+            for (int symbol = 0; symbol < k; symbol++) {
+                int target = blockOf[next(representative, symbol)];
+                if (target != sinkBlock && newIndex[target] == DfaTable.DEAD) {
+                    newIndex[target] = count;
+                    order[count++] = target;
+                }
+            }
+        }
+
+        if (count == 0) {
+            // the language is empty, keep a single rejecting start state
+            return new DfaTable(dfa.symbols, dfa.symbolClass, filled(k), new boolean[1]);
+        }
+
+        int[] table = new int[count * k];
+        boolean[] accepting = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int representative = elements[blockStart[order[i]]];
+            accepting[i] = dfa.accepting[representative];
+            for (int symbol = 0; symbol < k; symbol++) {
+                int target = blockOf[next(representative, symbol)];
+                table[i * k + symbol] = target == sinkBlock ? DfaTable.DEAD : newIndex[target];
+            }
+        }
+
+        return new DfaTable(dfa.symbols, dfa.symbolClass, table, accepting);
+    }
+
+    private static int[] filled(int length) {
+        int[] table = new int[length];
+        Arrays.fill(table, DfaTable.DEAD);
+        return table;
+    }
+}
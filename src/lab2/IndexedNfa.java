@@ -0,0 +1,97 @@
+package lab2;
+
+import java.util.*;
+
+// int-indexed view of a FiniteAutomaton: states and symbols are interned to dense indices
+class IndexedNfa {
+    final String[] stateNames;
+    final char[] symbols;
+    final int[] symbolClass;    // char -> symbol index, -1 if not in alphabet
+    final int[][] targets;      // state * symbols.length + symbol -> target states
+    final int start;
+    final boolean[] accepting;
+
+    IndexedNfa(FiniteAutomaton fa) {
+        Map<String, Integer> stateIndex = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        intern(fa.getStartState(), stateIndex, names);
+        for (String state : fa.getStates()) {
+            intern(state, stateIndex, names);
+        }
+        for (var entry : fa.getTransitions().entrySet()) {
+            intern(entry.getKey(), stateIndex, names);
+            for (Set<String> stateTargets : entry.getValue().values()) {
+                for (String target : stateTargets) {
+                    intern(target, stateIndex, names);
+                }
+            }
+        }
+        this.stateNames = names.toArray(new String[0]);
+        this.start = 0;
+
+        // keep the alphabet iteration order so results line up with the map-based algorithms
+        this.symbols = new char[fa.getAlphabet().size()];
+        int maxChar = 0;
+        int k = 0;
+        for (char symbol : fa.getAlphabet()) {
+            symbols[k++] = symbol;
+            maxChar = Math.max(maxChar, symbol);
+        }
+        this.symbolClass = new int[maxChar + 1];
+        Arrays.fill(symbolClass, -1);
+        for (int i = 0; i < symbols.length; i++) {
+            symbolClass[symbols[i]] = i;
+        }
+
+        int[] empty = new int[0];
+        this.targets = new int[stateNames.length * symbols.length][];
+        Arrays.fill(targets, empty);
+        for (var entry : fa.getTransitions().entrySet()) {
+            int from = stateIndex.get(entry.getKey());
+            for (var transition : entry.getValue().entrySet()) {
+                int symbol = symbolIndex(transition.getKey());
+                if (symbol < 0) {
+                    continue;
+                }
+                int[] row = new int[transition.getValue().size()];
+                int i = 0;
+                for (String target : transition.getValue()) {
+                    row[i++] = stateIndex.get(target);
+                }
+                Arrays.sort(row);
+                targets[from * symbols.length + symbol] = row;
+            }
+        }
+
+        this.accepting = new boolean[stateNames.length];
+        for (String state : fa.getFinalStates()) {
+            Integer index = stateIndex.get(state);
+            if (index != null) {
+                accepting[index] = true;
+            }
+        }
+    }
+
+    private static void intern(String state, Map<String, Integer> stateIndex, List<String> names) {
+        if (!stateIndex.containsKey(state)) {
+            stateIndex.put(state, names.size());
+            names.add(state);
+        }
+    }
+
+    int stateCount() {
+        return stateNames.length;
+    }
+
+    int symbolCount() {
+        return symbols.length;
+    }
+
+    int symbolIndex(char symbol) {
+        return symbol < symbolClass.length ? symbolClass[symbol] : -1;
+    }
+
+    int[] targets(int state, int symbol) {
+        return targets[state * symbols.length + symbol];
+    }
+}
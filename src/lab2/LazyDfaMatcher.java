@@ -0,0 +1,289 @@
+package lab2;
+
+import java.util.*;
+
+// builds DFA states on demand while scanning and keeps at most `capacity` of them in an LRU cache,
+// when the cache thrashes the rest of the input is matched by plain NFA simulation (as RE2 does).
+// not thread-safe, use one matcher per thread
+public class LazyDfaMatcher {
+    private static final long UNKNOWN = 0L;
+    private static final long DEAD = -1L;
+    private static final int NONE = -1;
+
+    // give up on the cache when fewer than this many characters are scanned per evicted state
+    private static final int MIN_CHARS_PER_EVICTION = 10;
+    private static final int MIN_EVICTIONS_BEFORE_FALLBACK = 8;
+
+    private final IndexedNfa nfa;
+    private final int capacity;
+    private final int words;
+    private final int k;
+
+    // cached DFA states live in slots, a transition stores (generation << 32 | slot) so entries
+    // pointing at an evicted slot are recognized as stale
+    private final long[] sets;
+    private final int[] hashes;
+    private final int[] generation;
+    private final boolean[] accepting;
+    private final long[] transitions;
+    private int used;
+
+    // access-ordered list of slots, head is the most recently used
+    private final int[] prev;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+
+    // open addressing index of slot + 1, 0 means empty
+    private final int[] index;
+
+    private final long[] scratch;
+    private final long[] simulationNext;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long fallbacks;
+
+    LazyDfaMatcher(IndexedNfa nfa, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Cache capacity must be at least 2, got " + capacity);
+        }
+        this.nfa = nfa;
+        this.capacity = capacity;
+        this.words = Math.max(1, (nfa.stateCount() + 63) >>> 6);
+        this.k = nfa.symbolCount();
+        this.sets = new long[capacity * words];
+        this.hashes = new int[capacity];
+        this.generation = new int[capacity];
+        this.accepting = new boolean[capacity];
+        this.transitions = new long[capacity * k];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        this.scratch = new long[words];
+        this.simulationNext = new long[words];
+    }
+
+    public boolean matches(CharSequence input) {
+        Arrays.fill(scratch, 0L);
+        scratch[nfa.start >>> 6] |= 1L << nfa.start;
+        int current = lookup(scratch);
+        touch(current);
+        long evictionsAtStart = evictions;
+
+        for (int i = 0, n = input.length(); i < n; i++) {
+            int symbol = nfa.symbolIndex(input.charAt(i));
+            if (symbol < 0) {
+                return false;
+            }
+
+            long transition = transitions[current * k + symbol];
+            if (transition == DEAD) {
+                return false;
+            }
+            int target = (int) transition;
+            if (transition != UNKNOWN && generation[target] == (int) (transition >>> 32)) {
+                hits++;
+            } else {
+                if (!step(current, symbol, scratch)) {
+                    transitions[current * k + symbol] = DEAD;
+                    return false;
+                }
+                target = lookup(scratch);
+                transitions[current * k + symbol] = ((long) generation[target] << 32) | target;
+
+                long evicted = evictions - evictionsAtStart;
+                if (evicted >= MIN_EVICTIONS_BEFORE_FALLBACK && (i + 1) / evicted < MIN_CHARS_PER_EVICTION) {
+                    fallbacks++;
+                    return simulate(target, input, i + 1);
+                }
+            }
+            touch(target);
+            current = target;
+        }
+
+        return accepting[current];
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    public int getCachedStates() {
+        return used;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // computes the successor of the state set in `slot` into `out`, false if it is empty
+    private boolean step(int slot, int symbol, long[] out) {
+        return step(sets, slot * words, symbol, out);
+    }
+
+    private boolean step(long[] from, int base, int symbol, long[] out) {
+        Arrays.fill(out, 0L);
+        boolean empty = true;
+        for (int w = 0; w < words; w++) {
+            long bits = from[base + w];
+            while (bits != 0) {
+                int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                for (int target : nfa.targets(state, symbol)) {
+                    out[target >>> 6] |= 1L << target;
+                    empty = false;
+                }
+            }
+        }
+        return !empty;
+    }
+
+    private boolean simulate(int slot, CharSequence input, int from) {
+        long[] current = scratch;
+        System.arraycopy(sets, slot * words, current, 0, words);
+        long[] following = simulationNext;
+
+        for (int i = from, n = input.length(); i < n; i++) {
+            int symbol = nfa.symbolIndex(input.charAt(i));
+            if (symbol < 0 || !step(current, 0, symbol, following)) {
+                return false;
+            }
+            long[] swap = current;
+            current = following;
+            following = swap;
+        }
+
+        return containsAccepting(current, 0);
+    }
+
+    private boolean containsAccepting(long[] set, int base) {
+        for (int w = 0; w < words; w++) {
+            long bits = set[base + w];
+            while (bits != 0) {
+                int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (nfa.accepting[state]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // returns the slot holding `set`, building (and possibly evicting) one if it is not cached
+    private int lookup(long[] set) {
+        int hash = SubsetConstruction.hash(set);
+        int mask = index.length - 1;
+        for (int position = hash & mask; index[position] != 0; position = (position + 1) & mask) {
+            int slot = index[position] - 1;
+            if (hashes[slot] == hash && equalsAt(slot, set)) {
+                return slot;
+            }
+        }
+
+        misses++;
+        int slot;
+        if (used < capacity) {
+            slot = used++;
+        } else {
+            slot = tail;
+            evictions++;
+            unlink(slot);
+            removeFromIndex(slot);
+        }
+
+        System.arraycopy(set, 0, sets, slot * words, words);
+        hashes[slot] = hash;
+        generation[slot]++;
+        accepting[slot] = containsAccepting(sets, slot * words);
+        Arrays.fill(transitions, slot * k, slot * k + k, UNKNOWN);
+        insertIntoIndex(slot);
+        pushFront(slot);
+        return slot;
+    }
+
+    private void touch(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            pushFront(slot);
+        }
+    }
+
+    private void pushFront(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tail = prev[slot];
+        }
+    }
+
+    private void insertIntoIndex(int slot) {
+        int mask = index.length - 1;
+        int position = hashes[slot] & mask;
+        while (index[position] != 0) {
+            position = (position + 1) & mask;
+        }
+        index[position] = slot + 1;
+    }
+
+    // backward-shift deletion keeps linear probing chains intact without tombstones
+    private void removeFromIndex(int slot) {
+        int mask = index.length - 1;
+        int position = hashes[slot] & mask;
+        while (index[position] != slot + 1) {
+            position = (position + 1) & mask;
+        }
+
+        int hole = position;
+        for (int probe = (hole + 1) & mask; index[probe] != 0; probe = (probe + 1) & mask) {
+            int home = hashes[index[probe] - 1] & mask;
+            // move the entry back if the hole lies between its home position and where it sits now
+            if (((probe - home) & mask) >= ((probe - hole) & mask)) {
+                index[hole] = index[probe];
+                hole = probe;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private boolean equalsAt(int slot, long[] set) {
+        int base = slot * words;
+        for (int w = 0; w < words; w++) {
+            if (sets[base + w] != set[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -12,6 +12,17 @@ public class Main {
         FiniteAutomaton fa = grammar.toFiniteAutomaton();
         System.out.println("Is the FA deterministic? " + fa.isDeterministic());
 
+        FiniteAutomaton dfa = fa.convertNdfaToDfaBitset();
+        System.out.println("DFA states: " + dfa.getStates().size() + ", final: " + dfa.getFinalStates());
+
+        FiniteAutomaton minimal = fa.minimize();
+        System.out.println("Minimal DFA states: " + minimal.getStates().size() + ", final: " + minimal.getFinalStates());
+
+        LazyDfaMatcher matcher = fa.lazyMatcher(16);
+        System.out.println("aab accepted by lazy DFA: " + matcher.matches("aab"));
+        System.out.println("Lazy DFA cache: " + matcher.getHits() + " hits, " + matcher.getMisses() + " misses, "
+                + matcher.getEvictions() + " evictions");
+
         Map<String, List<String>> faToGrammar = grammar.finiteAutomatonToGrammar(fa);
         System.out.println("\nFinite Automaton to Regular Grammar:");
         for (var entry : faToGrammar.entrySet()) {
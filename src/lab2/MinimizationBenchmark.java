@@ -0,0 +1,109 @@
+package lab2;
+
+import java.util.*;
+
+public class MinimizationBenchmark {
+    private static final int STATES = 12_000;
+    private static final int CORE_STATES = 40;
+    private static final int INPUTS = 20_000;
+    private static final int INPUT_LENGTH = 200;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        FiniteAutomaton fa = generate(random, STATES, CORE_STATES, "abcd");
+
+        long start = System.nanoTime();
+        DfaTable before = new SubsetConstruction(new IndexedNfa(fa)).run();
+        long determinized = System.nanoTime();
+        DfaTable after = new HopcroftMinimizer(before).minimize();
+        long minimized = System.nanoTime();
+
+        System.out.printf("Subset construction: %d states in %.1f ms%n", before.stateCount(), (determinized - start) / 1e6);
+        System.out.printf("Hopcroft minimization: %d states in %.1f ms%n", after.stateCount(), (minimized - determinized) / 1e6);
+        System.out.printf("Table footprint: %,d bytes before, %,d bytes after%n", before.footprint(), after.footprint());
+
+        String[] inputs = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = randomString(random, "abcd", INPUT_LENGTH);
+        }
+
+        for (int i = 0; i < INPUTS; i++) {
+            if (before.matches(inputs[i]) != after.matches(inputs[i])) {
+                throw new IllegalStateException("Minimized automaton disagrees on " + inputs[i]);
+            }
+        }
+
+        for (int round = 0; round < 5; round++) {
+            double beforeRate = throughput(before, inputs);
+            double afterRate = throughput(after, inputs);
+            System.out.printf("Round %d: %.1f M chars/s before, %.1f M chars/s after%n", round + 1, beforeRate, afterRate);
+        }
+    }
+
+    // a random DFA over CORE_STATES states, unfolded into `states` copies that all behave like their core state
+    static FiniteAutomaton generate(Random random, int states, int coreStates, String alphabet) {
+        int[][] core = new int[coreStates][alphabet.length()];
+        boolean[] coreFinal = new boolean[coreStates];
+        for (int s = 0; s < coreStates; s++) {
+            for (int c = 0; c < alphabet.length(); c++) {
+                core[s][c] = random.nextInt(coreStates);
+            }
+            coreFinal[s] = random.nextInt(3) == 0;
+        }
+
+        Set<String> q = new HashSet<>();
+        Set<Character> sigma = new HashSet<>();
+        Map<String, Map<Character, Set<String>>> delta = new HashMap<>();
+        Set<String> f = new HashSet<>();
+        for (char symbol : alphabet.toCharArray()) {
+            sigma.add(symbol);
+        }
+
+        // the first `coreStates` states cover every core state, so everything stays reachable from s0
+        for (int s = 0; s < states; s++) {
+            String name = "s" + s;
+            q.add(name);
+            int coreState = s % coreStates;
+            if (coreFinal[coreState]) {
+                f.add(name);
+            }
+            Map<Character, Set<String>> row = new HashMap<>();
+            for (int c = 0; c < alphabet.length(); c++) {
+                int coreTarget = core[coreState][c];
+                int copies = (states - coreTarget + coreStates - 1) / coreStates;
+                int target = coreTarget + coreStates * random.nextInt(copies);
+                row.put(alphabet.charAt(c), new HashSet<>(Collections.singleton("s" + target)));
+            }
+            delta.put(name, row);
+        }
+
+        return new FiniteAutomaton(q, sigma, delta, "s0", f);
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static double throughput(DfaTable dfa, String[] inputs) {
+        int accepted = 0;
+        long chars = 0;
+        long start = System.nanoTime();
+        for (int repeat = 0; repeat < 10; repeat++) {
+            for (String input : inputs) {
+                if (dfa.matches(input)) {
+                    accepted++;
+                }
+                chars += input.length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (accepted < 0) {
+            System.out.println(accepted);
+        }
+        return chars / (elapsed / 1e3);
+    }
+}
@@ -0,0 +1,126 @@
+package lab2;
+
+import java.util.*;
+
+// one matchAll scan against a compiled matcher per pattern, on a mix of suffix patterns (which merge
+// into a small product) and random automata (which force the state limit to split groups)
+public class MultiPatternBenchmark {
+    private static final int SUFFIX_PATTERNS = 250;
+    private static final int RANDOM_PATTERNS = 50;
+    private static final int INPUTS = 2_000;
+    private static final int INPUT_LENGTH = 100;
+    private static final String ALPHABET = "abcd";
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        List<FiniteAutomaton> patterns = new ArrayList<>();
+        for (int i = 0; i < SUFFIX_PATTERNS; i++) {
+            patterns.add(endsWith(randomString(random, 3 + random.nextInt(4))));
+        }
+        for (int i = 0; i < RANDOM_PATTERNS; i++) {
+            patterns.add(MinimizationBenchmark.generate(random, 8, 8, ALPHABET));
+        }
+
+        long start = System.nanoTime();
+        MultiPatternMatcher multi = MultiPatternMatcher.compile(patterns);
+        double compileMillis = (System.nanoTime() - start) / 1e6;
+        DfaMatcher[] separate = new DfaMatcher[patterns.size()];
+        for (int p = 0; p < separate.length; p++) {
+            separate[p] = patterns.get(p).compileMatcher();
+        }
+        System.out.printf("%d patterns merged into %d groups, %,d product states, built in %.1f ms%n",
+                multi.getPatternCount(), multi.getGroupCount(), multi.getStateCount(), compileMillis);
+
+        String[] inputs = new String[INPUTS];
+        long matches = 0;
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = randomString(random, INPUT_LENGTH);
+            BitSet expected = new BitSet();
+            for (int p = 0; p < separate.length; p++) {
+                if (separate[p].matches(inputs[i])) {
+                    expected.set(p);
+                }
+            }
+            if (!expected.equals(multi.matchAll(inputs[i]))) {
+                throw new IllegalStateException("Multi-pattern scan disagrees on " + inputs[i]);
+            }
+            matches += expected.cardinality();
+        }
+        System.out.printf("%.2f matching patterns per input on average%n", matches / (double) INPUTS);
+
+        for (int round = 0; round < 3; round++) {
+            double onePass = measure(() -> {
+                long found = 0;
+                for (String input : inputs) {
+                    found += multi.matchAll(input).cardinality();
+                }
+                return found;
+            });
+            double perPattern = measure(() -> {
+                long found = 0;
+                for (String input : inputs) {
+                    for (DfaMatcher matcher : separate) {
+                        if (matcher.matches(input)) {
+                            found++;
+                        }
+                    }
+                }
+                return found;
+            });
+            System.out.printf("Round %d: %,.0f inputs/s in one pass, %,.0f inputs/s with one scan per pattern%n",
+                    round + 1, onePass, perPattern);
+        }
+    }
+
+    // strings over ALPHABET ending in word: a self loop on the start state followed by a chain
+    private static FiniteAutomaton endsWith(String word) {
+        Set<String> q = new HashSet<>();
+        Set<Character> sigma = new HashSet<>();
+        Map<String, Map<Character, Set<String>>> delta = new HashMap<>();
+        for (char symbol : ALPHABET.toCharArray()) {
+            sigma.add(symbol);
+        }
+        for (int i = 0; i <= word.length(); i++) {
+            q.add("w" + i);
+            delta.put("w" + i, new HashMap<>());
+        }
+        for (char symbol : ALPHABET.toCharArray()) {
+            delta.get("w0").computeIfAbsent(symbol, s -> new HashSet<>()).add("w0");
+        }
+        for (int i = 0; i < word.length(); i++) {
+            delta.get("w" + i).computeIfAbsent(word.charAt(i), s -> new HashSet<>()).add("w" + (i + 1));
+        }
+        return new FiniteAutomaton(q, sigma, delta, "w0", new HashSet<>(Collections.singleton("w" + word.length())));
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    // batches of all inputs per second
+    private static double measure(Batch batch) {
+        long found = 0;
+        long batches = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            found += batch.run();
+            batches++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        if (found < 0) {
+            System.out.println(found);
+        }
+        return batches * INPUTS / (elapsed / 1e9);
+    }
+
+    private interface Batch {
+        long run();
+    }
+}
@@ -0,0 +1,289 @@
+package lab2;
+
+import java.util.*;
+
+// runs many automata over an input in one scan. every pattern is determinized and minimized, then the
+// patterns are merged into product DFAs whose states are tuples of pattern states; each product state
+// carries the bitset of patterns accepting there. a product that grows past maxStates is thrown away
+// and its patterns are split in two groups, the groups are then stepped side by side on every character.
+// immutable, safe to share between threads
+public class MultiPatternMatcher {
+    public static final int DEFAULT_MAX_STATES = 10_000;
+
+    private final int patternCount;
+    private final int[] symbolClass;    // char -> index in the merged alphabet, -1 if no pattern uses it
+    private final int k;
+    private final Group[] groups;
+
+    private MultiPatternMatcher(int patternCount, int[] symbolClass, int k, Group[] groups) {
+        this.patternCount = patternCount;
+        this.symbolClass = symbolClass;
+        this.k = k;
+        this.groups = groups;
+    }
+
+    public static MultiPatternMatcher compile(List<FiniteAutomaton> patterns) {
+        return compile(patterns, DEFAULT_MAX_STATES);
+    }
+
+    public static MultiPatternMatcher compile(List<FiniteAutomaton> patterns, int maxStates) {
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("State limit must be positive, got " + maxStates);
+        }
+
+        DfaTable[] dfas = new DfaTable[patterns.size()];
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (int p = 0; p < dfas.length; p++) {
+            DfaTable dfa = new SubsetConstruction(new IndexedNfa(patterns.get(p))).run();
+            dfas[p] = new HopcroftMinimizer(dfa).minimize();
+            for (char symbol : dfas[p].symbols) {
+                alphabet.add(symbol);
+            }
+        }
+
+        char[] symbols = new char[alphabet.size()];
+        int maxChar = -1;
+        int index = 0;
+        for (char symbol : alphabet) {
+            symbols[index++] = symbol;
+            maxChar = symbol;
+        }
+        int[] symbolClass = new int[maxChar + 1];
+        Arrays.fill(symbolClass, -1);
+        for (int i = 0; i < symbols.length; i++) {
+            symbolClass[symbols[i]] = i;
+        }
+
+        // split until every group fits, a single pattern is kept whatever its size
+        List<Group> groups = new ArrayList<>();
+        Deque<int[]> pending = new ArrayDeque<>();
+        int[] all = new int[dfas.length];
+        for (int p = 0; p < all.length; p++) {
+            all[p] = p;
+        }
+        if (all.length > 0) {
+            pending.push(all);
+        }
+        while (!pending.isEmpty()) {
+            int[] members = pending.pop();
+            Group group = Group.build(members, dfas, symbols, members.length == 1 ? Integer.MAX_VALUE : maxStates);
+            if (group != null) {
+                groups.add(group);
+            } else {
+                int half = members.length / 2;
+                pending.push(Arrays.copyOfRange(members, half, members.length));
+                pending.push(Arrays.copyOfRange(members, 0, half));
+            }
+        }
+
+        return new MultiPatternMatcher(dfas.length, symbolClass, symbols.length, groups.toArray(new Group[0]));
+    }
+
+    // ids of every pattern, in the order given to compile, whose language contains the input
+    public BitSet matchAll(CharSequence input) {
+        int[] current = new int[groups.length];     // every product DFA starts in state 0
+        int alive = groups.length;
+        BitSet matched = new BitSet(patternCount);
+
+        for (int i = 0, n = input.length(); i < n && alive > 0; i++) {
+            char ch = input.charAt(i);
+            int symbol = ch < symbolClass.length ? symbolClass[ch] : -1;
+            if (symbol < 0) {
+                return matched;
+            }
+            for (int g = 0; g < groups.length; g++) {
+                if (current[g] != DfaTable.DEAD) {
+                    current[g] = groups[g].table[current[g] * k + symbol];
+                    if (current[g] == DfaTable.DEAD) {
+                        alive--;
+                    }
+                }
+            }
+        }
+
+        for (int g = 0; g < groups.length; g++) {
+            if (current[g] != DfaTable.DEAD) {
+                groups[g].collect(current[g], matched);
+            }
+        }
+        return matched;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public int getGroupCount() {
+        return groups.length;
+    }
+
+    // product states over all groups
+    public int getStateCount() {
+        int states = 0;
+        for (Group group : groups) {
+            states += group.stateCount;
+        }
+        return states;
+    }
+
+    // one product DFA over a subset of the patterns. states are numbered in BFS order, state 0 is the
+    // tuple of start states
+    private static final class Group {
+        final int[] members;        // local pattern index -> pattern id
+        final int words;
+        final int[] table;          // state * symbols + symbol -> next state or DfaTable.DEAD
+        final long[] accepted;      // state * words -> local indices of the accepting patterns
+        final int stateCount;
+
+        private Group(int[] members, int[] table, long[] accepted, int stateCount) {
+            this.members = members;
+            this.words = (members.length + 63) >>> 6;
+            this.table = table;
+            this.accepted = accepted;
+            this.stateCount = stateCount;
+        }
+
+        // null when the product needs more than maxStates states
+        static Group build(int[] members, DfaTable[] dfas, char[] symbols, int maxStates) {
+            int width = members.length;
+            int words = (width + 63) >>> 6;
+            int k = symbols.length;
+
+            // symbol index of the merged alphabet -> symbol index of each member, -1 if unused there
+            int[] localSymbol = new int[k * width];
+            for (int c = 0; c < k; c++) {
+                for (int m = 0; m < width; m++) {
+                    localSymbol[c * width + m] = dfas[members[m]].symbolIndex(symbols[c]);
+                }
+            }
+
+            TupleSet tuples = new TupleSet(width);
+            int[] tuple = new int[width];
+            tuples.add(tuple);                      // all members start in their state 0
+            int[] table = new int[16 * Math.max(1, k)];
+
+            // ids are handed out in BFS order, so the id itself is the queue cursor
+            for (int current = 0; current < tuples.size(); current++) {
+                for (int c = 0; c < k; c++) {
+                    boolean dead = true;
+                    for (int m = 0; m < width; m++) {
+                        int state = tuples.get(current, m);
+                        int symbol = localSymbol[c * width + m];
+                        int next = state == DfaTable.DEAD || symbol < 0 ? DfaTable.DEAD : dfas[members[m]].next(state, symbol);
+                        tuple[m] = next;
+                        dead &= next == DfaTable.DEAD;
+                    }
+
+                    int target = DfaTable.DEAD;
+                    if (!dead) {
+                        target = tuples.find(tuple);
+                        if (target < 0) {
+                            if (tuples.size() == maxStates) {
+                                return null;
+                            }
+                            target = tuples.add(tuple);
+                        }
+                    }
+                    if ((current + 1) * k > table.length) {
+                        table = Arrays.copyOf(table, table.length * 2);
+                    }
+                    table[current * k + c] = target;
+                }
+            }
+
+            int states = tuples.size();
+            long[] accepted = new long[states * words];
+            for (int s = 0; s < states; s++) {
+                for (int m = 0; m < width; m++) {
+                    int state = tuples.get(s, m);
+                    if (state != DfaTable.DEAD && dfas[members[m]].accepting[state]) {
+                        accepted[s * words + (m >>> 6)] |= 1L << m;
+                    }
+                }
+            }
+            return new Group(members, Arrays.copyOf(table, states * k), accepted, states);
+        }
+
+        void collect(int state, BitSet out) {
+            for (int w = 0; w < words; w++) {
+                for (long bits = accepted[state * words + w]; bits != 0; bits &= bits - 1) {
+                    out.set(members[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                }
+            }
+        }
+    }
+
+    // fixed-width int tuples stored once in a flat pool, looked up through open addressing
+    private static final class TupleSet {
+        private final int width;
+        private int[] pool;
+        private int[] hashes;
+        private int[] slots;        // tuple id + 1, 0 means empty
+        private int size;
+
+        TupleSet(int width) {
+            this.width = width;
+            this.pool = new int[16 * width];
+            this.hashes = new int[16];
+            this.slots = new int[32];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int id, int index) {
+            return pool[id * width + index];
+        }
+
+        int find(int[] tuple) {
+            int hash = hash(tuple);
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && Arrays.equals(pool, id * width, (id + 1) * width, tuple, 0, width)) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        int add(int[] tuple) {
+            int id = size++;
+            if (id == hashes.length) {
+                pool = Arrays.copyOf(pool, hashes.length * 2 * width);
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            System.arraycopy(tuple, 0, pool, id * width, width);
+            hashes[id] = hash(tuple);
+
+            if (size * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                for (int i = 0; i < size; i++) {
+                    insert(i);
+                }
+            } else {
+                insert(id);
+            }
+            return id;
+        }
+
+        private void insert(int id) {
+            int mask = slots.length - 1;
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+
+        private static int hash(int[] tuple) {
+            int h = 0;
+            for (int value : tuple) {
+                h = (h ^ value) * 0x9E3779B1;
+                h ^= h >>> 15;
+            }
+            return h;
+        }
+    }
+}
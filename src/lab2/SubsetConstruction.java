@@ -0,0 +1,157 @@
+package lab2;
+
+import java.util.*;
+
+// subset construction over long[] bitsets, every subset is stored once in a flat pool
+// and looked up through an open-addressing hash table
+class SubsetConstruction {
+    private final IndexedNfa nfa;
+    private final int words;
+
+    private long[] pool;        // subset id * words -> bitset words
+    private int[] hashes;       // subset id -> cached hash
+    private int[] slots;        // open addressing table of subset id + 1, 0 means empty
+    private int subsetCount;
+
+    private int[] table;        // subset id * symbols -> target subset id, DfaTable.DEAD if none
+
+    SubsetConstruction(IndexedNfa nfa) {
+        this.nfa = nfa;
+        this.words = Math.max(1, (nfa.stateCount() + 63) >>> 6);
+        this.pool = new long[16 * words];
+        this.hashes = new int[16];
+        this.slots = new int[32];
+        this.table = new int[16 * Math.max(1, nfa.symbolCount())];
+    }
+
+    DfaTable run() {
+        determinize();
+
+        boolean[] accepting = new boolean[subsetCount];
+        for (int id = 0; id < subsetCount; id++) {
+            accepting[id] = isAccepting(id);
+        }
+        int[] dfaTable = Arrays.copyOf(table, subsetCount * nfa.symbolCount());
+
+        return new DfaTable(nfa.symbols, nfa.symbolClass, dfaTable, accepting);
+    }
+
+    // fills the subset pool and transition table, subsets are numbered in discovery (BFS) order
+    private void determinize() {
+        int k = nfa.symbolCount();
+        long[] scratch = new long[words];
+
+        scratch[nfa.start >>> 6] |= 1L << nfa.start;
+        add(scratch);
+
+        // ids are handed out in BFS order, so the id itself is the queue cursor
+        for (int current = 0; current < subsetCount; current++) {
+            for (int symbol = 0; symbol < k; symbol++) {
+                Arrays.fill(scratch, 0L);
+                boolean empty = true;
+                int base = current * words;
+                for (int w = 0; w < words; w++) {
+                    long bits = pool[base + w];
+                    while (bits != 0) {
+                        int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        for (int target : nfa.targets(state, symbol)) {
+                            scratch[target >>> 6] |= 1L << target;
+                            empty = false;
+                        }
+                    }
+                }
+
+                int target = DfaTable.DEAD;
+                if (!empty) {
+                    target = find(scratch);
+                    if (target < 0) {
+                        target = add(scratch);
+                    }
+                }
+                table[current * k + symbol] = target;
+            }
+        }
+    }
+
+    private boolean isAccepting(int id) {
+        int base = id * words;
+        for (int w = 0; w < words; w++) {
+            long bits = pool[base + w];
+            while (bits != 0) {
+                int state = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (nfa.accepting[state]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int find(long[] set) {
+        int hash = hash(set);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && equalsAt(id, set)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private int add(long[] set) {
+        int id = subsetCount++;
+        if (id == hashes.length) {
+            int capacity = hashes.length * 2;
+            pool = Arrays.copyOf(pool, capacity * words);
+            hashes = Arrays.copyOf(hashes, capacity);
+            table = Arrays.copyOf(table, capacity * Math.max(1, nfa.symbolCount()));
+        }
+        System.arraycopy(set, 0, pool, id * words, words);
+        hashes[id] = hash(set);
+
+        if (subsetCount * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insertSlot(id);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int id = 0; id < subsetCount; id++) {
+            insertSlot(id);
+        }
+    }
+
+    private void insertSlot(int id) {
+        int mask = slots.length - 1;
+        int slot = hashes[id] & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private boolean equalsAt(int id, long[] set) {
+        int base = id * words;
+        for (int w = 0; w < words; w++) {
+            if (pool[base + w] != set[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hash(long[] set) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long word : set) {
+            h = (h ^ word) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+}
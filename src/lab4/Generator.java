@@ -7,13 +7,30 @@ import java.util.Random;
 public class Generator {
     private final String expr;
     private final Random random;
+    private final GeneratorProgram program;
 
     public Generator(String expr) {
         this.expr = expr;
         this.random = new Random();
+        this.program = GeneratorProgram.compile(expr);
     }
 
+    // runs the program compiled in the constructor, the expression text is not looked at again.
+    // the builder is local so concurrent callers stay independent, as with the interpreter
     public String generateString() {
+        StringBuilder out = new StringBuilder();
+        program.generate(random, out);
+        return out.toString();
+    }
+
+    // appends one generated string to out, e.g. to fill a reusable buffer without creating Strings
+    public void generateInto(StringBuilder out) {
+        program.generate(random, out);
+    }
+
+    // the original character by character interpretation, kept as the baseline for GeneratorBenchmark.
+    // it only understands flat groups and single-digit counts
+    String generateStringInterpreted() {
         List<String> string = new ArrayList<>();
         int i = 0;
 
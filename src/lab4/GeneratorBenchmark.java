@@ -0,0 +1,56 @@
+package lab4;
+
+import java.util.function.Supplier;
+
+// strings per second of the compiled Generator against the original interpreter that re-reads the
+// expression text for every string
+public class GeneratorBenchmark {
+    private static final String[] EXPRESSIONS = {
+            "(S|T)(U|V)W*Y+24",
+            "L(M|N)O{3}P*Q(2|3)",
+            "R*S(T|U|V)W(X|Y|Z){2}",
+            "a(b|c)+d*e?f^2g{3}"
+    };
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        String[] expressions = args.length > 0 ? args : EXPRESSIONS;
+
+        for (String expr : expressions) {
+            Generator generator = new Generator(expr);
+            System.out.println("\n" + expr);
+
+            double interpreted = measure(generator::generateStringInterpreted);
+            double compiled = measure(generator::generateString);
+            StringBuilder reused = new StringBuilder();
+            double buffered = measure(() -> {
+                reused.setLength(0);
+                generator.generateInto(reused);
+                return reused;
+            });
+
+            System.out.printf("  interpreted:          %,14.0f strings/s%n", interpreted);
+            System.out.printf("  compiled:             %,14.0f strings/s (%.1fx)%n", compiled, compiled / interpreted);
+            System.out.printf("  compiled into buffer: %,14.0f strings/s (%.1fx)%n", buffered, buffered / interpreted);
+        }
+    }
+
+    private static double measure(Supplier<CharSequence> generate) {
+        long characters = 0;
+        long strings = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1000; i++) {
+                characters += generate.get().length();
+            }
+            strings += 1000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        if (characters < 0) {
+            System.out.println(characters);     // keeps the generated strings observable
+        }
+        return strings / (elapsed / 1e9);
+    }
+}
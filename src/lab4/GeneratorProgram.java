@@ -0,0 +1,132 @@
+package lab4;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+// a RegexNode tree flattened into arrays for Generator, so producing a string is a walk over ints with
+// no parsing. it follows Generator's rules: top-level parts are separated by spaces, a repetition
+// repeats one generated copy of its body, and unbounded repetitions stop at MAX_UNBOUNDED_REPEAT
+final class GeneratorProgram {
+    static final int MAX_UNBOUNDED_REPEAT = 5;
+
+    private static final int LITERAL = 0;
+    private static final int CONCAT = 1;
+    private static final int ALTERNATION = 2;
+    private static final int REPEAT = 3;
+
+    private final int[] kind;
+    private final char[] literal;
+    private final int[] min;
+    private final int[] max;            // inclusive, unbounded repetitions already capped
+    private final int[] childStart;     // children of node n are children[childStart[n] .. childStart[n + 1])
+    private final int[] children;
+    private final int root;
+
+    private GeneratorProgram(int[] kind, char[] literal, int[] min, int[] max, int[] childStart, int[] children, int root) {
+        this.kind = kind;
+        this.literal = literal;
+        this.min = min;
+        this.max = max;
+        this.childStart = childStart;
+        this.children = children;
+        this.root = root;
+    }
+
+    static GeneratorProgram compile(String expression) {
+        return compile(RegexParser.parse(expression));
+    }
+
+    static GeneratorProgram compile(RegexNode tree) {
+        List<RegexNode> nodes = new ArrayList<>();
+        collect(tree, nodes);
+
+        // post-order numbering, so every child index is below its parent and the root is last
+        int count = nodes.size();
+        int[] kind = new int[count];
+        char[] literal = new char[count];
+        int[] min = new int[count];
+        int[] max = new int[count];
+        int[] childStart = new int[count + 1];
+        List<Integer> children = new ArrayList<>();
+        IdentityHashMap<RegexNode, Integer> index = new IdentityHashMap<>();
+
+        for (int n = 0; n < count; n++) {
+            RegexNode node = nodes.get(n);
+            index.put(node, n);
+            childStart[n] = children.size();
+            switch (node.getKind()) {
+                case LITERAL -> {
+                    kind[n] = LITERAL;
+                    literal[n] = node.getLiteral();
+                }
+                case CONCAT -> kind[n] = CONCAT;
+                case ALTERNATION -> kind[n] = ALTERNATION;
+                case REPEAT -> {
+                    kind[n] = REPEAT;
+                    min[n] = node.getMin();
+                    max[n] = node.getMax() == RegexNode.UNBOUNDED
+                            ? Math.max(node.getMin(), MAX_UNBOUNDED_REPEAT) : node.getMax();
+                }
+            }
+            for (RegexNode child : node.getChildren()) {
+                children.add(index.get(child));
+            }
+        }
+        childStart[count] = children.size();
+
+        return new GeneratorProgram(kind, literal, min, max, childStart,
+                children.stream().mapToInt(Integer::intValue).toArray(), count - 1);
+    }
+
+    private static void collect(RegexNode node, List<RegexNode> out) {
+        for (RegexNode child : node.getChildren()) {
+            collect(child, out);
+        }
+        out.add(node);
+    }
+
+    // appends one generated string to out
+    void generate(Random random, StringBuilder out) {
+        if (kind[root] != CONCAT) {
+            emit(root, random, out);
+            return;
+        }
+        for (int c = childStart[root]; c < childStart[root + 1]; c++) {
+            if (c > childStart[root]) {
+                out.append(' ');
+            }
+            emit(children[c], random, out);
+        }
+    }
+
+    private void emit(int node, Random random, StringBuilder out) {
+        switch (kind[node]) {
+            case LITERAL -> out.append(literal[node]);
+            case CONCAT -> {
+                for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+                    emit(children[c], random, out);
+                }
+            }
+            case ALTERNATION -> {
+                int options = childStart[node + 1] - childStart[node];
+                emit(children[childStart[node] + random.nextInt(options)], random, out);
+            }
+            default -> {
+                int times = min[node] + random.nextInt(max[node] - min[node] + 1);
+                if (times == 0) {
+                    return;
+                }
+                int start = out.length();
+                emit(children[childStart[node]], random, out);
+                int end = out.length();
+                for (int t = 1; t < times; t++) {
+                    for (int i = start; i < end; i++) {
+                        out.append(out.charAt(i));
+                    }
+                }
+            }
+        }
+    }
+}
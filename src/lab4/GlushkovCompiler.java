@@ -0,0 +1,71 @@
+package lab4;
+
+import lab2.FiniteAutomaton;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// compiles an expression into a lab2 FiniteAutomaton through its position automaton: state q0 is the
+// initial state and qi is the i-th literal occurrence, so there are no ε transitions and the result can
+// go straight into convertNdfaToDfa, minimize or compileMatcher
+public final class GlushkovCompiler {
+    private GlushkovCompiler() {
+    }
+
+    // automaton for the language of the expression
+    public static FiniteAutomaton compile(String expression) {
+        return compile(RegexParser.parse(expression));
+    }
+
+    // automaton for strings in the format Generator prints them, with a space between top-level parts.
+    // every generated string is accepted, but the language is larger: a generated repetition repeats
+    // one chosen copy and stops after a few rounds, the automaton allows any copies and any count
+    public static FiniteAutomaton compileGeneratorOutput(String expression) {
+        RegexNode root = RegexParser.parse(expression);
+        if (root.getKind() != RegexNode.Kind.CONCAT) {
+            return compile(root);
+        }
+        RegexNode[] parts = new RegexNode[root.getChildren().size() * 2 - 1];
+        for (int i = 0; i < root.getChildren().size(); i++) {
+            if (i > 0) {
+                parts[2 * i - 1] = RegexNode.literal(' ');
+            }
+            parts[2 * i] = root.getChildren().get(i);
+        }
+        return compile(RegexNode.concat(parts));
+    }
+
+    static FiniteAutomaton compile(RegexNode root) {
+        PositionAutomaton positions = PositionAutomaton.build(root);
+        int count = positions.positionCount();
+
+        Set<String> states = new HashSet<>();
+        Set<Character> alphabet = new HashSet<>();
+        Map<String, Map<Character, Set<String>>> transitions = new HashMap<>();
+        Set<String> finalStates = new HashSet<>();
+
+        for (int p = 0; p < count; p++) {
+            String name = "q" + p;
+            states.add(name);
+            if (p > 0) {
+                alphabet.add(positions.positionSymbol[p]);
+            }
+            if (positions.last.get(p)) {
+                finalStates.add(name);
+            }
+
+            // every move into position t reads t's symbol, so the follow set splits by target symbol
+            Map<Character, Set<String>> row = new HashMap<>();
+            BitSet follow = positions.follow[p];
+            for (int t = follow.nextSetBit(0); t >= 0; t = follow.nextSetBit(t + 1)) {
+                row.computeIfAbsent(positions.positionSymbol[t], symbol -> new HashSet<>()).add("q" + t);
+            }
+            transitions.put(name, row);
+        }
+
+        return new FiniteAutomaton(states, alphabet, transitions, "q0", finalStates);
+    }
+}
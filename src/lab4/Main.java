@@ -12,6 +12,15 @@ public class Main {
             System.out.println("\nGenerated strings for expression: " + expr);
             Generator generator = new Generator(expr);
             generator.generateNStrings();
+
+            UniformSampler sampler = new UniformSampler(expr, 8);
+            System.out.println("Uniform samples among " + sampler.count() + " strings of length 8:");
+            for (int i = 0; sampler.count().signum() > 0 && i < 3; i++) {
+                System.out.println(sampler.sample());
+            }
+
+            System.out.println("Shortest strings of " + ShortlexEnumerator.count(expr, 8) + " up to length 8:");
+            ShortlexEnumerator.strings(expr, 8).limit(5).forEach(System.out::println);
         }
     }
 }
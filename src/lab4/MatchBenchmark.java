@@ -0,0 +1,67 @@
+package lab4;
+
+import lab2.DfaMatcher;
+import lab2.FiniteAutomaton;
+import lab2.LazyDfaMatcher;
+
+import java.util.function.Predicate;
+
+// validates Generator output against the expression it came from: the expression is compiled to a
+// Glushkov NFA, then matched with the minimal DFA table and with the lazily determinizing matcher
+public class MatchBenchmark {
+    private static final String[] EXPRESSIONS = {
+            "(S|T)(U|V)W*Y+24",
+            "L(M|N)O{3}P*Q(2|3)",
+            "R*S(T|U|V)W(X|Y|Z){2}",
+            "a(b|c)+d*e?f^2g{3}"
+    };
+    private static final int INPUTS = 100_000;
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        String[] expressions = args.length > 0 ? args : EXPRESSIONS;
+
+        for (String expr : expressions) {
+            long start = System.nanoTime();
+            FiniteAutomaton nfa = GlushkovCompiler.compileGeneratorOutput(expr);
+            DfaMatcher dfa = nfa.compileMatcher();
+            double compileMillis = (System.nanoTime() - start) / 1e6;
+            LazyDfaMatcher lazy = nfa.lazyMatcher(64);
+
+            Generator generator = new Generator(expr);
+            String[] inputs = new String[INPUTS];
+            for (int i = 0; i < INPUTS; i++) {
+                inputs[i] = generator.generateString();
+                if (!dfa.matches(inputs[i]) || !lazy.matches(inputs[i])) {
+                    throw new IllegalStateException("Generated string was rejected: " + inputs[i]);
+                }
+            }
+
+            System.out.printf("%n%s%n  NFA %d states, minimal DFA %d states, compiled in %.2f ms%n",
+                    expr, nfa.getStates().size(), dfa.stateCount(), compileMillis);
+            System.out.printf("  minimal DFA table: %,14.0f strings/s%n", throughput(dfa::matches, inputs));
+            System.out.printf("  lazy DFA:          %,14.0f strings/s%n", throughput(lazy::matches, inputs));
+        }
+    }
+
+    private static double throughput(Predicate<String> matcher, String[] inputs) {
+        long matched = 0;
+        long strings = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (String input : inputs) {
+                if (matcher.test(input)) {
+                    matched++;
+                }
+            }
+            strings += inputs.length;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        if (matched != strings) {
+            throw new IllegalStateException(strings - matched + " generated strings were rejected");
+        }
+        return strings / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,136 @@
+package lab4;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Glushkov position automaton of a RegexNode: one state per literal occurrence plus the initial state 0,
+// no ε moves. bounded repetitions are unrolled, so x{2,4} contributes four copies of x's positions
+final class PositionAutomaton {
+    static final int MAX_POSITIONS = 1 << 20;
+
+    final char[] positionSymbol;    // index 0 (the initial state) is unused
+    final BitSet[] follow;          // follow[0] is the first set
+    final BitSet last;              // accepting positions, includes 0 when the empty string matches
+
+    private PositionAutomaton(char[] positionSymbol, BitSet[] follow, BitSet last) {
+        this.positionSymbol = positionSymbol;
+        this.follow = follow;
+        this.last = last;
+    }
+
+    static PositionAutomaton build(RegexNode root) {
+        Builder builder = new Builder();
+        Fragment fragment = builder.visit(root);
+
+        int positions = builder.symbols.length();
+        char[] symbols = new char[positions + 1];
+        builder.symbols.getChars(0, positions, symbols, 1);
+        BitSet[] follow = new BitSet[positions + 1];
+        follow[0] = fragment.first;
+        for (int p = 1; p <= positions; p++) {
+            follow[p] = builder.follow.get(p - 1);
+        }
+        BitSet last = (BitSet) fragment.last.clone();
+        if (fragment.nullable) {
+            last.set(0);
+        }
+        return new PositionAutomaton(symbols, follow, last);
+    }
+
+    int positionCount() {
+        return positionSymbol.length;
+    }
+
+    private static final class Fragment {
+        final BitSet first;
+        final BitSet last;
+        final boolean nullable;
+
+        Fragment(BitSet first, BitSet last, boolean nullable) {
+            this.first = first;
+            this.last = last;
+            this.nullable = nullable;
+        }
+
+        static Fragment empty() {
+            return new Fragment(new BitSet(), new BitSet(), true);
+        }
+    }
+
+    private static final class Builder {
+        final StringBuilder symbols = new StringBuilder();
+        final List<BitSet> follow = new ArrayList<>();
+
+        Fragment visit(RegexNode node) {
+            switch (node.getKind()) {
+                case LITERAL: {
+                    if (symbols.length() == MAX_POSITIONS) {
+                        throw new IllegalArgumentException("Expression unrolls to more than " + MAX_POSITIONS + " positions");
+                    }
+                    symbols.append(node.getLiteral());
+                    follow.add(new BitSet());
+                    BitSet self = new BitSet();
+                    self.set(symbols.length());     // positions are numbered from 1
+                    return new Fragment(self, (BitSet) self.clone(), false);
+                }
+                case CONCAT: {
+                    Fragment result = Fragment.empty();
+                    for (RegexNode child : node.getChildren()) {
+                        result = concat(result, visit(child));
+                    }
+                    return result;
+                }
+                case ALTERNATION: {
+                    BitSet first = new BitSet();
+                    BitSet last = new BitSet();
+                    boolean nullable = false;
+                    for (RegexNode child : node.getChildren()) {
+                        Fragment option = visit(child);
+                        first.or(option.first);
+                        last.or(option.last);
+                        nullable |= option.nullable;
+                    }
+                    return new Fragment(first, last, nullable);
+                }
+                default: {
+                    // x{m,n} = m copies of x, then n - m optional copies (or x* when unbounded)
+                    Fragment result = Fragment.empty();
+                    for (int i = 0; i < node.getMin(); i++) {
+                        result = concat(result, visit(node.getChild()));
+                    }
+                    if (node.getMax() == RegexNode.UNBOUNDED) {
+                        Fragment loop = visit(node.getChild());
+                        link(loop.last, loop.first);
+                        result = concat(result, new Fragment(loop.first, loop.last, true));
+                    } else {
+                        for (int i = node.getMin(); i < node.getMax(); i++) {
+                            Fragment optional = visit(node.getChild());
+                            result = concat(result, new Fragment(optional.first, optional.last, true));
+                        }
+                    }
+                    return result;
+                }
+            }
+        }
+
+        private Fragment concat(Fragment a, Fragment b) {
+            link(a.last, b.first);
+            BitSet first = (BitSet) a.first.clone();
+            if (a.nullable) {
+                first.or(b.first);
+            }
+            BitSet last = (BitSet) b.last.clone();
+            if (b.nullable) {
+                last.or(a.last);
+            }
+            return new Fragment(first, last, a.nullable && b.nullable);
+        }
+
+        private void link(BitSet from, BitSet to) {
+            for (int p = from.nextSetBit(0); p >= 0; p = from.nextSetBit(p + 1)) {
+                follow.get(p - 1).or(to);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package lab4;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// deterministic automaton of a RegexNode, built by subset construction over the position automaton.
+// state 0 is the start, transitions are a dense table indexed by state * symbolCount + symbol.
+// the subset construction can be exponential in the positions, so it stops at maxStates
+final class RegexAutomaton {
+    static final int DEAD = -1;
+    static final int DEFAULT_MAX_STATES = 100_000;
+
+    private final char[] symbols;       // sorted distinct literals of the expression
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    private RegexAutomaton(char[] symbols, int[] transitions, boolean[] accepting) {
+        this.symbols = symbols;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    static RegexAutomaton compile(String expression) {
+        return compile(RegexParser.parse(expression), DEFAULT_MAX_STATES);
+    }
+
+    static RegexAutomaton compile(String expression, int maxStates) {
+        return compile(RegexParser.parse(expression), maxStates);
+    }
+
+    static RegexAutomaton compile(RegexNode root, int maxStates) {
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("State limit must be positive, got " + maxStates);
+        }
+        PositionAutomaton positions = PositionAutomaton.build(root);
+
+        TreeSet<Character> distinct = new TreeSet<>();
+        for (int p = 1; p < positions.positionCount(); p++) {
+            distinct.add(positions.positionSymbol[p]);
+        }
+        char[] symbols = new char[distinct.size()];
+        int index = 0;
+        for (char ch : distinct) {
+            symbols[index++] = ch;
+        }
+        int k = symbols.length;
+        int[] positionClass = new int[positions.positionCount()];
+        for (int p = 1; p < positionClass.length; p++) {
+            positionClass[p] = Arrays.binarySearch(symbols, positions.positionSymbol[p]);
+        }
+
+        // subset construction, BFS ids double as the queue
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        BitSet start = new BitSet();
+        start.set(0);
+        ids.put(start, 0);
+        states.add(start);
+
+        int[] table = new int[Math.max(1, k) * 16];
+        BitSet[] targets = new BitSet[k];
+        for (int s = 0; s < states.size(); s++) {
+            for (int c = 0; c < k; c++) {
+                targets[c] = new BitSet();
+            }
+            BitSet state = states.get(s);
+            for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1)) {
+                BitSet next = positions.follow[p];
+                for (int q = next.nextSetBit(0); q >= 0; q = next.nextSetBit(q + 1)) {
+                    targets[positionClass[q]].set(q);
+                }
+            }
+
+            if ((s + 1) * k > table.length) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, (s + 1) * k));
+            }
+            for (int c = 0; c < k; c++) {
+                if (targets[c].isEmpty()) {
+                    table[s * k + c] = DEAD;
+                    continue;
+                }
+                Integer id = ids.get(targets[c]);
+                if (id == null) {
+                    if (states.size() == maxStates) {
+                        throw new IllegalArgumentException("Expression needs a DFA with more than " + maxStates + " states");
+                    }
+                    id = states.size();
+                    ids.put(targets[c], id);
+                    states.add(targets[c]);
+                }
+                table[s * k + c] = id;
+            }
+        }
+
+        boolean[] accepting = new boolean[states.size()];
+        for (int s = 0; s < states.size(); s++) {
+            accepting[s] = states.get(s).intersects(positions.last);
+        }
+        return new RegexAutomaton(symbols, Arrays.copyOf(table, states.size() * k), accepting);
+    }
+
+    int stateCount() {
+        return accepting.length;
+    }
+
+    int symbolCount() {
+        return symbols.length;
+    }
+
+    char symbol(int index) {
+        return symbols[index];
+    }
+
+    // index of ch in the alphabet, or -1 if the expression never uses it
+    int symbolIndex(char ch) {
+        int index = Arrays.binarySearch(symbols, ch);
+        return index < 0 ? -1 : index;
+    }
+
+    int next(int state, int symbol) {
+        return transitions[state * symbols.length + symbol];
+    }
+
+    boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    boolean matches(CharSequence input) {
+        int state = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = symbolIndex(input.charAt(i));
+            if (symbol < 0 || (state = next(state, symbol)) == DEAD) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+
+    // counts[k][s] = number of strings of length k accepted from state s, for k = 0 .. maxLength.
+    // the automaton is deterministic, so this counts strings and not derivations
+    BigInteger[][] countAccepted(int maxLength) {
+        int states = stateCount();
+        BigInteger[][] counts = new BigInteger[maxLength + 1][states];
+        for (int s = 0; s < states; s++) {
+            counts[0][s] = accepting[s] ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        for (int k = 1; k <= maxLength; k++) {
+            for (int s = 0; s < states; s++) {
+                BigInteger sum = BigInteger.ZERO;
+                for (int c = 0; c < symbols.length; c++) {
+                    int t = next(s, c);
+                    if (t != DEAD) {
+                        sum = sum.add(counts[k - 1][t]);
+                    }
+                }
+                counts[k][s] = sum;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,109 @@
+package lab4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// immutable regular expression tree produced by RegexParser: literals, concatenation, alternation and
+// bounded or unbounded repetition (*, +, ? and ^n / {m,n} are all REPEAT with different bounds)
+final class RegexNode {
+    static final int UNBOUNDED = -1;
+    static final int MAX_REPEAT = 1000;     // largest explicit bound, every copy is unrolled and generated
+
+    enum Kind {LITERAL, CONCAT, ALTERNATION, REPEAT}
+
+    private final Kind kind;
+    private final char literal;
+    private final List<RegexNode> children;
+    private final int min;
+    private final int max;
+
+    private RegexNode(Kind kind, char literal, List<RegexNode> children, int min, int max) {
+        this.kind = kind;
+        this.literal = literal;
+        this.children = children;
+        this.min = min;
+        this.max = max;
+    }
+
+    static RegexNode literal(char ch) {
+        return new RegexNode(Kind.LITERAL, ch, Collections.emptyList(), 1, 1);
+    }
+
+    // a single part is returned as is, no parts is the empty string
+    static RegexNode concat(RegexNode... parts) {
+        return parts.length == 1 ? parts[0] : new RegexNode(Kind.CONCAT, '\0', List.of(parts), 1, 1);
+    }
+
+    static RegexNode alternation(RegexNode... options) {
+        return options.length == 1 ? options[0] : new RegexNode(Kind.ALTERNATION, '\0', List.of(options), 1, 1);
+    }
+
+    static RegexNode repeat(RegexNode child, int min, int max) {
+        if (min < 0 || min > MAX_REPEAT || max > MAX_REPEAT || (max != UNBOUNDED && max < min)) {
+            throw new IllegalArgumentException("Invalid repetition bounds {" + min + "," + max + "}");
+        }
+        return new RegexNode(Kind.REPEAT, '\0', List.of(child), min, max);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    char getLiteral() {
+        return literal;
+    }
+
+    List<RegexNode> getChildren() {
+        return children;
+    }
+
+    RegexNode getChild() {
+        return children.get(0);
+    }
+
+    int getMin() {
+        return min;
+    }
+
+    int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case LITERAL:
+                return String.valueOf(literal);
+            case CONCAT: {
+                StringBuilder sb = new StringBuilder();
+                for (RegexNode child : children) {
+                    sb.append(child.kind == Kind.ALTERNATION ? "(" + child + ")" : child.toString());
+                }
+                return sb.toString();
+            }
+            case ALTERNATION: {
+                String[] options = new String[children.size()];
+                Arrays.setAll(options, i -> children.get(i).toString());
+                return String.join("|", options);
+            }
+            default: {
+                RegexNode child = getChild();
+                String body = child.kind == Kind.LITERAL ? child.toString() : "(" + child + ")";
+                if (min == 0 && max == UNBOUNDED) {
+                    return body + "*";
+                }
+                if (min == 1 && max == UNBOUNDED) {
+                    return body + "+";
+                }
+                if (min == 0 && max == 1) {
+                    return body + "?";
+                }
+                if (min == max) {
+                    return body + "{" + min + "}";
+                }
+                return body + "{" + min + "," + (max == UNBOUNDED ? "" : String.valueOf(max)) + "}";
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package lab4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// recursive descent parser for the lab4 expression syntax:
+//   alternation := concat ('|' concat)*
+//   concat      := repeat*
+//   repeat      := atom ('*' | '+' | '?' | '^' digits | '{' digits [',' [digits]] '}')*
+//   atom        := '(' alternation ')' | any other character
+// repetition counts are at most RegexNode.MAX_REPEAT
+final class RegexParser {
+    private static final int MAX_NESTING = 1000;
+
+    private final String expr;
+    private int pos;
+
+    private RegexParser(String expr) {
+        this.expr = expr;
+    }
+
+    static RegexNode parse(String expr) {
+        RegexParser parser = new RegexParser(expr);
+        RegexNode node = parser.parseAlternation(0);
+        if (parser.pos < expr.length()) {
+            throw parser.error("Unexpected '" + expr.charAt(parser.pos) + "'");
+        }
+        return node;
+    }
+
+    private RegexNode parseAlternation(int depth) {
+        if (depth > MAX_NESTING) {
+            throw error("Groups nested deeper than " + MAX_NESTING + " levels");
+        }
+        List<RegexNode> options = new ArrayList<>();
+        options.add(parseConcat(depth));
+        while (peek() == '|') {
+            pos++;
+            options.add(parseConcat(depth));
+        }
+        return RegexNode.alternation(options.toArray(new RegexNode[0]));
+    }
+
+    private RegexNode parseConcat(int depth) {
+        List<RegexNode> parts = new ArrayList<>();
+        while (pos < expr.length() && peek() != '|' && peek() != ')') {
+            parts.add(parseRepeat(depth));
+        }
+        return RegexNode.concat(parts.toArray(new RegexNode[0]));
+    }
+
+    private RegexNode parseRepeat(int depth) {
+        RegexNode node = parseAtom(depth);
+        while (pos < expr.length()) {
+            char ch = peek();
+            if (ch == '*') {
+                pos++;
+                node = RegexNode.repeat(node, 0, RegexNode.UNBOUNDED);
+            } else if (ch == '+') {
+                pos++;
+                node = RegexNode.repeat(node, 1, RegexNode.UNBOUNDED);
+            } else if (ch == '?') {
+                pos++;
+                node = RegexNode.repeat(node, 0, 1);
+            } else if (ch == '^') {
+                pos++;
+                int count = parseNumber();
+                node = RegexNode.repeat(node, count, count);
+            } else if (ch == '{') {
+                pos++;
+                int min = parseNumber();
+                int max = min;
+                if (peek() == ',') {
+                    pos++;
+                    max = Character.isDigit(peek()) ? parseNumber() : RegexNode.UNBOUNDED;
+                }
+                expect('}');
+                if (max != RegexNode.UNBOUNDED && max < min) {
+                    throw error("Repetition {" + min + "," + max + "} has max below min");
+                }
+                node = RegexNode.repeat(node, min, max);
+            } else {
+                break;
+            }
+        }
+        return node;
+    }
+
+    private RegexNode parseAtom(int depth) {
+        char ch = peek();
+        if (ch == '(') {
+            pos++;
+            RegexNode group = parseAlternation(depth + 1);
+            expect(')');
+            return group;
+        }
+        if (ch == '*' || ch == '+' || ch == '?' || ch == '^' || ch == '{' || ch == '}') {
+            throw error("Quantifier '" + ch + "' has nothing to repeat");
+        }
+        pos++;
+        return RegexNode.literal(ch);
+    }
+
+    private int parseNumber() {
+        int start = pos;
+        int value = 0;
+        while (pos < expr.length() && Character.isDigit(expr.charAt(pos))) {
+            value = value * 10 + (expr.charAt(pos) - '0');
+            if (value > RegexNode.MAX_REPEAT) {
+                pos = start;
+                throw error("Repetition count above " + RegexNode.MAX_REPEAT);
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw error("Expected a repetition count");
+        }
+        return value;
+    }
+
+    private void expect(char ch) {
+        if (peek() != ch) {
+            throw error("Expected '" + ch + "'");
+        }
+        pos++;
+    }
+
+    private char peek() {
+        return pos < expr.length() ? expr.charAt(pos) : '\0';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + " in " + expr);
+    }
+}
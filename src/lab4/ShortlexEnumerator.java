@@ -0,0 +1,203 @@
+package lab4;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// every string of an expression's language up to a length bound, shortest first and alphabetical within
+// one length. strings are walked off the deterministic automaton, where each string has exactly one path,
+// so there are no duplicates to filter. the k-th string of the order can be computed from the counting
+// table directly, which lets trySplit hand out exact halves of the remaining range
+public final class ShortlexEnumerator {
+    private static final int MIN_SPLIT = 64;
+    private static final Comparator<String> SHORTLEX =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final RegexAutomaton automaton;
+    private final int maxLength;
+    private final BigInteger[][] counts;    // counts[k][s]: strings of length k accepted from state s
+    private final boolean[][] live;         // live[k][s]: counts[k][s] > 0
+    private final BigInteger[] before;      // before[L]: strings shorter than L
+    private final BigInteger total;
+
+    private ShortlexEnumerator(RegexAutomaton automaton, int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Length bound must not be negative: " + maxLength);
+        }
+        this.automaton = automaton;
+        this.maxLength = maxLength;
+        this.counts = automaton.countAccepted(maxLength);
+        this.live = new boolean[maxLength + 1][automaton.stateCount()];
+        for (int k = 0; k <= maxLength; k++) {
+            for (int s = 0; s < automaton.stateCount(); s++) {
+                live[k][s] = counts[k][s].signum() > 0;
+            }
+        }
+        this.before = new BigInteger[maxLength + 2];
+        before[0] = BigInteger.ZERO;
+        for (int length = 0; length <= maxLength; length++) {
+            before[length + 1] = before[length].add(counts[length][0]);
+        }
+        this.total = before[maxLength + 1];
+    }
+
+    public static Stream<String> strings(String expression, int maxLength) {
+        return StreamSupport.stream(spliterator(expression, maxLength), false);
+    }
+
+    public static Spliterator<String> spliterator(String expression, int maxLength) {
+        ShortlexEnumerator enumerator = new ShortlexEnumerator(RegexAutomaton.compile(expression), maxLength);
+        return enumerator.new Range(BigInteger.ZERO, enumerator.total);
+    }
+
+    // number of strings of length <= maxLength in the language
+    public static BigInteger count(String expression, int maxLength) {
+        return new ShortlexEnumerator(RegexAutomaton.compile(expression), maxLength).total;
+    }
+
+    // the strings with shortlex ranks [from, to). the current string is kept as a path through the
+    // automaton and advanced in place, a new String is only created for each emitted element
+    private final class Range implements Spliterator<String> {
+        private BigInteger from;            // rank of the first string not yet emitted, as of the last sync
+        private final BigInteger to;
+        private long emitted;               // strings emitted since `from`
+        private long remaining;             // saturates at Long.MAX_VALUE
+
+        private int length = -1;            // -1 until the first tryAdvance positions the path
+        private final char[] chars = new char[maxLength];
+        private final int[] choice = new int[maxLength];
+        private final int[] states = new int[maxLength + 1];
+
+        Range(BigInteger from, BigInteger to) {
+            this.from = from;
+            this.to = to;
+            this.remaining = saturate(to.subtract(from));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (remaining == 0) {
+                return false;
+            }
+            if (length < 0) {
+                position(from);
+            } else if (!advance()) {
+                remaining = 0;
+                return false;
+            }
+            emitted++;
+            if (remaining != Long.MAX_VALUE) {
+                remaining--;
+            }
+            action.accept(new String(chars, 0, length));
+            return true;
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            if (remaining < MIN_SPLIT * 2L) {
+                return null;
+            }
+            BigInteger current = from.add(BigInteger.valueOf(emitted));
+            BigInteger middle = current.add(to.subtract(current).shiftRight(1));
+
+            // this range keeps the suffix, so it restarts from middle on the next tryAdvance
+            Range prefix = new Range(current, middle);
+            from = middle;
+            emitted = 0;
+            remaining = saturate(to.subtract(middle));
+            length = -1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            int sized = total.bitLength() < 63 ? SIZED | SUBSIZED : 0;
+            return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE | sized;
+        }
+
+        @Override
+        public Comparator<? super String> getComparator() {
+            return SHORTLEX;
+        }
+
+        // sets the path to the string with the given global rank
+        private void position(BigInteger rank) {
+            int target = 0;
+            while (before[target + 1].compareTo(rank) <= 0) {
+                target++;
+            }
+            BigInteger r = rank.subtract(before[target]);
+            length = target;
+            states[0] = 0;
+            for (int i = 0; i < length; i++) {
+                int k = length - i - 1;
+                for (int c = 0; c < automaton.symbolCount(); c++) {
+                    int t = automaton.next(states[i], c);
+                    if (t == RegexAutomaton.DEAD || !live[k][t]) {
+                        continue;
+                    }
+                    if (r.compareTo(counts[k][t]) < 0) {
+                        set(i, c, t);
+                        break;
+                    }
+                    r = r.subtract(counts[k][t]);
+                }
+            }
+        }
+
+        // moves the path to the next string in shortlex order, false after the last one
+        private boolean advance() {
+            for (int i = length - 1; i >= 0; i--) {
+                int k = length - i - 1;
+                for (int c = choice[i] + 1; c < automaton.symbolCount(); c++) {
+                    int t = automaton.next(states[i], c);
+                    if (t != RegexAutomaton.DEAD && live[k][t]) {
+                        set(i, c, t);
+                        fillSmallest(i + 1);
+                        return true;
+                    }
+                }
+            }
+            for (int next = length + 1; next <= maxLength; next++) {
+                if (live[next][0]) {
+                    length = next;
+                    fillSmallest(0);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void fillSmallest(int from) {
+            for (int i = from; i < length; i++) {
+                int k = length - i - 1;
+                for (int c = 0; c < automaton.symbolCount(); c++) {
+                    int t = automaton.next(states[i], c);
+                    if (t != RegexAutomaton.DEAD && live[k][t]) {
+                        set(i, c, t);
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void set(int i, int c, int t) {
+            choice[i] = c;
+            chars[i] = automaton.symbol(c);
+            states[i + 1] = t;
+        }
+    }
+
+    private static long saturate(BigInteger value) {
+        return value.bitLength() < 63 ? value.longValue() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,147 @@
+package lab4;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+// samples strings of one exact length uniformly from the language of an expression. the expression is
+// determinized first, so every string has exactly one path and counting paths counts strings:
+// count[k][s] is the number of strings of length k accepted from state s. when the total fits in a long
+// one random number picks the string exactly, otherwise each step picks a symbol from precomputed
+// probabilities (uniform up to double rounding). sampling allocates nothing, not thread-safe
+public class UniformSampler {
+    private final RegexAutomaton automaton;
+    private final int length;
+    private final BigInteger total;
+    private final SplittableRandom random;
+
+    private final long[] exactCounts;       // [k * states + s], null when the total needs more than 62 bits
+    private final double[] cumulative;      // [(k * states + s) * symbols + c], only without exact counts
+
+    public UniformSampler(String expression, int length) {
+        this(expression, length, new SplittableRandom().nextLong());
+    }
+
+    public UniformSampler(String expression, int length, long seed) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length must not be negative: " + length);
+        }
+        this.automaton = RegexAutomaton.compile(expression);
+        this.length = length;
+        this.random = new SplittableRandom(seed);
+
+        int states = automaton.stateCount();
+        int symbols = automaton.symbolCount();
+        BigInteger[][] counts = automaton.countAccepted(length);
+        this.total = counts[length][0];
+
+        if (total.bitLength() <= 62) {
+            this.exactCounts = new long[(length + 1) * states];
+            for (int k = 0; k <= length; k++) {
+                for (int s = 0; s < states; s++) {
+                    exactCounts[k * states + s] = counts[k][s].longValue();
+                }
+            }
+            this.cumulative = null;
+        } else {
+            this.exactCounts = null;
+            this.cumulative = new double[(length + 1) * states * symbols];
+            for (int k = 1; k <= length; k++) {
+                for (int s = 0; s < states; s++) {
+                    BigInteger all = counts[k][s];
+                    if (all.signum() == 0) {
+                        continue;
+                    }
+                    // scale to about 60 bits so the ratio neither overflows nor underflows a double
+                    int shift = Math.max(0, all.bitLength() - 60);
+                    double denominator = all.shiftRight(shift).doubleValue();
+                    double sum = 0;
+                    for (int c = 0; c < symbols; c++) {
+                        int t = automaton.next(s, c);
+                        if (t != RegexAutomaton.DEAD) {
+                            sum += counts[k - 1][t].shiftRight(shift).doubleValue() / denominator;
+                        }
+                        cumulative[(k * states + s) * symbols + c] = sum;
+                    }
+                }
+            }
+        }
+    }
+
+    // number of strings of the requested length in the language
+    public BigInteger count() {
+        return total;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // writes one string into buffer[offset, offset + length) and returns the length
+    public int sample(char[] buffer, int offset) {
+        if (total.signum() == 0) {
+            throw new IllegalStateException("The expression matches no string of length " + length);
+        }
+        if (buffer.length - offset < length) {
+            throw new IllegalArgumentException("Buffer has room for " + (buffer.length - offset)
+                    + " characters, " + length + " needed");
+        }
+        return exactCounts != null ? sampleExact(buffer, offset) : sampleApproximate(buffer, offset);
+    }
+
+    public String sample() {
+        char[] buffer = new char[length];
+        sample(buffer, 0);
+        return new String(buffer);
+    }
+
+    private int sampleExact(char[] buffer, int offset) {
+        int states = automaton.stateCount();
+        int symbols = automaton.symbolCount();
+        long r = random.nextLong(exactCounts[length * states]);
+        int state = 0;
+
+        for (int i = 0; i < length; i++) {
+            int remaining = length - i - 1;
+            for (int c = 0; c < symbols; c++) {
+                int t = automaton.next(state, c);
+                if (t == RegexAutomaton.DEAD) {
+                    continue;
+                }
+                long weight = exactCounts[remaining * states + t];
+                if (r < weight) {
+                    buffer[offset + i] = automaton.symbol(c);
+                    state = t;
+                    break;
+                }
+                r -= weight;
+            }
+        }
+        return length;
+    }
+
+    private int sampleApproximate(char[] buffer, int offset) {
+        int states = automaton.stateCount();
+        int symbols = automaton.symbolCount();
+        int state = 0;
+
+        for (int i = 0; i < length; i++) {
+            int k = length - i;
+            int base = (k * states + state) * symbols;
+            double u = random.nextDouble() * cumulative[base + symbols - 1];
+            int chosen = -1;
+            for (int c = 0; c < symbols; c++) {
+                int t = automaton.next(state, c);
+                if (t == RegexAutomaton.DEAD || cumulative[base + c] == (c == 0 ? 0 : cumulative[base + c - 1])) {
+                    continue;       // no string continues through this symbol
+                }
+                chosen = c;
+                if (u < cumulative[base + c]) {
+                    break;
+                }
+            }
+            buffer[offset + i] = automaton.symbol(chosen);
+            state = automaton.next(state, chosen);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,178 @@
+package lab5;
+
+import java.util.*;
+
+// CNF conversion in TERM -> BIN -> DEL -> UNIT order. binarizing first leaves at most two symbols per
+// right side, so removing ε adds at most two rules per rule instead of 2^k, and the unit closure is at
+// most quadratic. every step counts the rules it creates and stops as soon as the budget is exceeded
+class BoundedCNFConverter {
+    private final int maxProductions;
+    private final IntCNFConverter cleanup = new IntCNFConverter();
+
+    BoundedCNFConverter(int maxProductions) {
+        if (maxProductions < 1) {
+            throw new IllegalArgumentException("Production budget must be positive: " + maxProductions);
+        }
+        this.maxProductions = maxProductions;
+    }
+
+    Grammar convertToCNF(Grammar grammar) {
+        return convertToCNF(IntGrammar.fromGrammar(grammar)).toGrammar();
+    }
+
+    IntGrammar convertToCNF(IntGrammar grammar) {
+        checkBudget("input", grammar.productionCount(), -1, grammar);
+
+        IntGrammar result = binarize(grammar);
+        result = eliminateEpsilonProductions(result);
+        result = eliminateRenaming(result);
+        result = cleanup.eliminateNonproductive(result);
+        return cleanup.eliminateInaccessible(result);
+    }
+
+    // TERM + BIN: terminals in rules of length >= 2 are replaced by Xi, and longer rules are split
+    // right to left into Yi nonterminals shared by every rule with the same remainder
+    IntGrammar binarize(IntGrammar grammar) {
+        SymbolTable symbols = grammar.symbols;
+        IntCNFConverter.ProductionSet out = new IntCNFConverter.ProductionSet();
+        List<Integer> newNonTerminals = new ArrayList<>();
+        for (int nt : grammar.nonTerminals) {
+            newNonTerminals.add(nt);
+        }
+
+        int[] xCounter = {0};
+        Map<Integer, Integer> terminalToX = new HashMap<>();
+        int[] yCounter = {0};
+        Map<Long, Integer> pairToY = new HashMap<>();
+
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            int left = grammar.lhs[p];
+            int[] right = grammar.rhs[p];
+
+            if (right.length <= 1) {
+                add(out, "BIN", left, right, grammar);
+                continue;
+            }
+
+            int[] replaced = new int[right.length];
+            for (int i = 0; i < right.length; i++) {
+                int symbol = right[i];
+                if (symbols.isTerminal(symbol)) {
+                    Integer x = terminalToX.get(symbol);
+                    if (x == null) {
+                        x = symbols.fresh("X", xCounter);
+                        terminalToX.put(symbol, x);
+                        newNonTerminals.add(x);
+                        add(out, "BIN", x, new int[]{symbol}, grammar);
+                    }
+                    symbol = x;
+                }
+                replaced[i] = symbol;
+            }
+
+            int rest = replaced[replaced.length - 1];
+            for (int i = replaced.length - 2; i >= 1; i--) {
+                long key = ((long) replaced[i] << 32) | (rest & 0xffffffffL);
+                Integer y = pairToY.get(key);
+                if (y == null) {
+                    y = symbols.fresh("Y", yCounter);
+                    pairToY.put(key, y);
+                    newNonTerminals.add(y);
+                    add(out, "BIN", y, new int[]{replaced[i], rest}, grammar);
+                }
+                rest = y;
+            }
+            add(out, "BIN", left, new int[]{replaced[0], rest}, grammar);
+        }
+
+        return out.toGrammar(symbols, grammar.start, toArray(newNonTerminals), grammar.terminals);
+    }
+
+    // DEL: every right side has at most two symbols here, so A->BC only adds A->B and A->C
+    IntGrammar eliminateEpsilonProductions(IntGrammar grammar) {
+        boolean[] nullable = cleanup.findNullable(grammar);
+        IntCNFConverter.ProductionSet out = new IntCNFConverter.ProductionSet();
+
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            int left = grammar.lhs[p];
+            int[] right = grammar.rhs[p];
+            if (right.length == 0) {
+                continue;
+            }
+
+            add(out, "DEL", left, right, grammar);
+            if (right.length == 2) {
+                if (nullable[right[1]]) {
+                    add(out, "DEL", left, new int[]{right[0]}, grammar);
+                }
+                if (nullable[right[0]]) {
+                    add(out, "DEL", left, new int[]{right[1]}, grammar);
+                }
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, grammar.nonTerminals, grammar.terminals);
+    }
+
+    // UNIT: A gets the non-unit rules of every B reachable from A through unit rules
+    IntGrammar eliminateRenaming(IntGrammar grammar) {
+        int symbolCount = grammar.symbols.size();
+        int[][] byLeft = grammar.productionsByLeft();
+        int[] from = byLeft[0];
+        int[] order = byLeft[1];
+        IntCNFConverter.ProductionSet out = new IntCNFConverter.ProductionSet();
+
+        boolean[] declared = new boolean[symbolCount];
+        for (int nt : grammar.nonTerminals) {
+            declared[nt] = true;
+        }
+        int[] seen = new int[symbolCount];
+        Arrays.fill(seen, -1);
+        int[] queue = new int[symbolCount];
+
+        for (int a = 0; a < symbolCount; a++) {
+            if (from[a] == from[a + 1]) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = a;
+            seen[a] = a;
+            while (head < tail) {
+                int b = queue[head++];
+                for (int i = from[b]; i < from[b + 1]; i++) {
+                    int[] right = grammar.rhs[order[i]];
+                    if (right.length == 1 && declared[right[0]]) {
+                        if (seen[right[0]] != a) {
+                            seen[right[0]] = a;
+                            queue[tail++] = right[0];
+                        }
+                    } else {
+                        add(out, "UNIT", a, right, grammar);
+                    }
+                }
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, grammar.nonTerminals, grammar.terminals);
+    }
+
+    private void add(IntCNFConverter.ProductionSet out, String step, int left, int[] right, IntGrammar grammar) {
+        if (out.add(left, right)) {
+            checkBudget(step, out.size(), left, grammar);
+        }
+    }
+
+    private void checkBudget(String step, int productions, int left, IntGrammar grammar) {
+        if (productions > maxProductions) {
+            String at = left < 0 ? "" : " while expanding " + grammar.symbols.name(left);
+            throw new IllegalStateException("CNF conversion exceeded the budget of " + maxProductions
+                    + " productions in step " + step + at + " (input has " + grammar.productionCount()
+                    + " productions over " + grammar.nonTerminals.length + " nonterminals)");
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,223 @@
+package lab5;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+// converts many grammars concurrently. grammars are reduced to a canonical form (sorted, deduplicated
+// symbols and rules) so reordered submissions share one cached result, and misses run on virtual threads
+// through the budgeted BIN -> DEL -> UNIT pipeline. submit blocks while maxPending conversions are running,
+// which pushes back on producers
+public class CNFBatchService implements AutoCloseable {
+    public static final int DEFAULT_MAX_PRODUCTIONS = 100_000;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore pending;
+    private final int maxProductions;
+    private final Map<String, CompletableFuture<Grammar>> cache;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CNFBatchService(int maxPending, int maxCachedGrammars) {
+        this(maxPending, maxCachedGrammars, DEFAULT_MAX_PRODUCTIONS);
+    }
+
+    public CNFBatchService(int maxPending, int maxCachedGrammars, int maxProductions) {
+        if (maxPending < 1 || maxCachedGrammars < 1 || maxProductions < 1) {
+            throw new IllegalArgumentException("Invalid service limits: maxPending=" + maxPending
+                    + ", maxCachedGrammars=" + maxCachedGrammars + ", maxProductions=" + maxProductions);
+        }
+        // one virtual thread per conversion, the semaphore is what bounds the concurrency
+        this.pending = new Semaphore(maxPending);
+        this.maxProductions = maxProductions;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Grammar>> eldest) {
+                if (size() > maxCachedGrammars) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: CNFBatchService <grammar file> [max pending conversions]");
+            System.out.println("Each grammar is a block of lines: non-terminals (comma-separated), terminals,");
+            System.out.println("start symbol, then one rule per line (A->α); blocks are separated by blank lines");
+            return;
+        }
+        int maxPending = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 4;
+        List<Grammar> grammars = readGrammars(Path.of(args[0]));
+
+        long start = System.nanoTime();
+        List<Grammar> results;
+        try (CNFBatchService service = new CNFBatchService(maxPending, 1024)) {
+            results = service.convertAll(grammars);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            for (int i = 0; i < results.size(); i++) {
+                System.out.println("\nGrammar " + (i + 1) + " in CNF:");
+                System.out.println(results.get(i));
+            }
+            System.out.printf("Converted %,d grammars in %.3f s, at most %d at a time (%d cache hits, %d misses, %d evictions)%n",
+                    grammars.size(), seconds, maxPending, service.getHits(), service.getMisses(), service.getEvictions());
+        }
+    }
+
+    // waits for every conversion, results are in input order
+    public List<Grammar> convertAll(List<Grammar> grammars) throws InterruptedException {
+        List<CompletableFuture<Grammar>> futures = new ArrayList<>(grammars.size());
+        for (Grammar grammar : grammars) {
+            futures.add(submit(grammar));
+        }
+        List<Grammar> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<Grammar> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // every caller gets its own copy of the result, the cached grammar itself is never handed out
+    public CompletableFuture<Grammar> submit(Grammar grammar) throws InterruptedException {
+        Grammar canonical = canonicalize(grammar);
+        String key = canonicalForm(canonical);
+
+        CompletableFuture<Grammar> result;
+        synchronized (cache) {
+            result = cache.get(key);
+            if (result != null) {
+                hits++;
+                return result.thenApply(CNFBatchService::copy);
+            }
+            misses++;
+            result = new CompletableFuture<>();
+            cache.put(key, result);
+        }
+
+        CompletableFuture<Grammar> future = result;
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            // the entry is already visible to other submitters, it must not stay behind unfinished
+            fail(key, future, e);
+            throw e;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(new CNFConverter().convertToCNF(canonical, maxProductions));
+                } catch (RuntimeException e) {
+                    // includes the IllegalStateException thrown once the production budget is exceeded
+                    fail(key, future, e);
+                } finally {
+                    pending.release();
+                    // an Error still propagates out of the task, but waiters on this entry must not hang
+                    if (!future.isDone()) {
+                        fail(key, future, new IllegalStateException("Conversion ended without a result"));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            fail(key, future, e);
+        }
+        return future.thenApply(CNFBatchService::copy);
+    }
+
+    // failed conversions are not cached, the next submission tries again
+    private void fail(String key, CompletableFuture<Grammar> future, Throwable cause) {
+        synchronized (cache) {
+            cache.remove(key, future);
+        }
+        future.completeExceptionally(cause);
+    }
+
+    public long getHits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    public long getEvictions() {
+        synchronized (cache) {
+            return evictions;
+        }
+    }
+
+    // waits for the running conversions
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    // same grammar with symbols and rules sorted and duplicates removed
+    static Grammar canonicalize(Grammar grammar) {
+        return new Grammar(
+                sortedDistinct(grammar.getNonTerminals()),
+                sortedDistinct(grammar.getTerminals()),
+                sortedDistinct(grammar.getRules()),
+                grammar.getStartSymbol()
+        );
+    }
+
+    private static Grammar copy(Grammar grammar) {
+        return new Grammar(grammar.getNonTerminals().clone(), grammar.getTerminals().clone(),
+                grammar.getRules().clone(), grammar.getStartSymbol());
+    }
+
+    // one line per part, symbols and rules joined by a character that cannot appear in a rule
+    static String canonicalForm(Grammar canonical) {
+        return canonical.getStartSymbol() + '\n'
+                + String.join("\u0000", canonical.getNonTerminals()) + '\n'
+                + String.join("\u0000", canonical.getTerminals()) + '\n'
+                + String.join("\u0000", canonical.getRules());
+    }
+
+    private static String[] sortedDistinct(String[] values) {
+        return new TreeSet<>(Arrays.asList(values)).toArray(new String[0]);
+    }
+
+    private static List<Grammar> readGrammars(Path file) throws IOException {
+        List<Grammar> grammars = new ArrayList<>();
+        List<String> block = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                addGrammar(grammars, block);
+                block.clear();
+            } else {
+                block.add(line.trim());
+            }
+        }
+        addGrammar(grammars, block);
+        return grammars;
+    }
+
+    private static void addGrammar(List<Grammar> grammars, List<String> block) {
+        if (block.isEmpty()) {
+            return;
+        }
+        if (block.size() < 3) {
+            throw new IllegalArgumentException("Grammar block needs non-terminals, terminals and a start symbol: " + block);
+        }
+        grammars.add(new Grammar(
+                block.get(0).split(","),
+                block.get(1).split(","),
+                block.subList(3, block.size()).toArray(new String[0]),
+                block.get(2)
+        ));
+    }
+}
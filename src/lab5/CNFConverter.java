@@ -1,32 +1,49 @@
 package lab5;
 
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 class CNFConverter {
 
+    private static final int STEP_COUNT = 5;
+
     public Grammar convertToCNF(Grammar grammar) {
+        return convert(grammar, new ConsoleListener());
+    }
+
+    // the same five steps without any console output, each one reported to the listener
+    public Grammar convert(Grammar grammar, ConversionListener listener) {
+        ConversionListener target = listener == null ? ConversionListener.NONE : listener;
         Grammar result = grammar;
 
-        System.out.println("\nStep 1: Eliminate ε productions");
-        result = eliminateEpsilonProductions(result);
-        System.out.println(result);
+        result = runStep(1, "Eliminate ε productions", this::eliminateEpsilonProductions, result, target);
+        result = runStep(2, "Eliminate renaming", this::eliminateRenaming, result, target);
+        result = runStep(3, "Eliminate nonproductive symbols", this::eliminateNonproductive, result, target);
+        result = runStep(4, "Eliminate inaccessible symbols", this::eliminateInaccessible, result, target);
+        result = runStep(STEP_COUNT, "Convert to CNF", this::convertToChomsky, result, target);
 
-        System.out.println("\nStep 2: Eliminate renaming");
-        result = eliminateRenaming(result);
-        System.out.println(result);
+        return result;
+    }
 
-        System.out.println("\nStep 3: Eliminate nonproductive symbols");
-        result = eliminateNonproductive(result);
-        System.out.println(result);
+    private Grammar runStep(int step, String name, UnaryOperator<Grammar> operation, Grammar input,
+                            ConversionListener listener) {
+        listener.stepStarted(step, name, input);
 
-        System.out.println("\nStep 4: Eliminate inaccessible symbols");
-        result = eliminateInaccessible(result);
-        System.out.println(result);
+        long allocatedBefore = StepMetrics.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        Grammar output = operation.apply(input);
+        long wallNanos = System.nanoTime() - start;
+        long allocatedAfter = StepMetrics.currentThreadAllocatedBytes();
 
-        System.out.println("\nStep 5: Convert to CNF");
-        result = convertToChomsky(result);
+        long allocated = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+        listener.stepFinished(new StepMetrics(step, name, wallNanos, allocated, input, output), output);
+        return output;
+    }
 
-        return result;
+    // same language, but binarizes before removing ε so the result stays polynomial in the input,
+    // throws IllegalStateException once more than maxProductions rules would be created
+    public Grammar convertToCNF(Grammar grammar, int maxProductions) {
+        return new BoundedCNFConverter(maxProductions).convertToCNF(grammar);
     }
 
     // step 1: Eliminate ε productions
@@ -50,47 +67,43 @@ class CNFConverter {
         return result;
     }
 
-    private Set<String> findNullableSymbols(Grammar grammar) {
+    Set<String> findNullableSymbols(Grammar grammar) {
         String[] rules = grammar.getRules();
-        String[] nonTerminals = grammar.getNonTerminals();
 
         Set<String> nullable = new HashSet<>();
-        boolean changed = true;
+        Deque<String> worklist = new ArrayDeque<>();
 
-        for (String rule : rules) {
-            String[] parts = rule.split("->");
+        // remaining[r] counts the symbols of rule r not yet known to be nullable, and every symbol
+        // keeps the rules it occurs in, so each rule is revisited once per symbol occurrence
+        String[] lefts = new String[rules.length];
+        int[] remaining = new int[rules.length];
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+
+        for (int r = 0; r < rules.length; r++) {
+            String[] parts = rules[r].split("->");
             String left = parts[0];
             String right = parts[1];
+            lefts[r] = left;
 
             if (right.equals("ε")) {
-                nullable.add(left);
+                if (nullable.add(left)) {
+                    worklist.add(left);
+                }
+                continue;
             }
-        }
-
-        while (changed) {
-            changed = false;
-
-            for (String rule : rules) {
-                String[] parts = rule.split("->");
-                String left = parts[0];
-                String right = parts[1];
 
-                if (!nullable.contains(left)) {
-                    boolean allNullable = true;
-
-                    for (int i = 0; i < right.length(); i++) {
-                        String symbol = right.substring(i, i + 1);
+            remaining[r] = right.length();
+            for (int i = 0; i < right.length(); i++) {
+                occurrences.computeIfAbsent(right.substring(i, i + 1), k -> new ArrayList<>()).add(r);
+            }
+        }
 
-                        if (!nullable.contains(symbol)) {
-                            allNullable = false;
-                            break;
-                        }
-                    }
+        while (!worklist.isEmpty()) {
+            String symbol = worklist.poll();
 
-                    if (allNullable && right.length() > 0) {
-                        nullable.add(left);
-                        changed = true;
-                    }
+            for (int r : occurrences.getOrDefault(symbol, Collections.emptyList())) {
+                if (--remaining[r] == 0 && nullable.add(lefts[r])) {
+                    worklist.add(lefts[r]);
                 }
             }
         }
@@ -264,112 +277,59 @@ class CNFConverter {
     }
 
     // step 3: Eliminate nonproductive symbols
-    private Grammar eliminateNonproductive(Grammar grammar) {
+    Grammar eliminateNonproductive(Grammar grammar) {
         String[] rules = grammar.getRules();
         String[] nonTerminals = grammar.getNonTerminals();
         String[] terminals = grammar.getTerminals();
+        Set<String> terminalSet = new HashSet<>(Arrays.asList(terminals));
 
         // find all productive symbols
         Set<String> productive = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>();
 
-        // first pass: find directly productive symbols (A -> a)
-        for (String rule : rules) {
-            String[] parts = rule.split("->");
+        // remaining[r] counts the nonterminal occurrences of rule r not yet known to be productive,
+        // rules with only terminals (A -> a) start at zero
+        String[] lefts = new String[rules.length];
+        int[] remaining = new int[rules.length];
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+
+        for (int r = 0; r < rules.length; r++) {
+            String[] parts = rules[r].split("->");
             String left = parts[0];
-            String right = parts[1];
+            String right = parts[1].equals("ε") ? "" : parts[1];     // A -> ε is productive
+            lefts[r] = left;
 
-            boolean onlyTerminals = true;
             for (int i = 0; i < right.length(); i++) {
                 String symbol = right.substring(i, i + 1);
-                boolean isTerminal = false;
-
-                for (String term : terminals) {
-                    if (symbol.equals(term)) {
-                        isTerminal = true;
-                        break;
-                    }
-                }
 
-                if (!isTerminal) {
-                    onlyTerminals = false;
-                    break;
+                if (!terminalSet.contains(symbol)) {
+                    remaining[r]++;
+                    occurrences.computeIfAbsent(symbol, k -> new ArrayList<>()).add(r);
                 }
             }
 
-            if (onlyTerminals) {
-                productive.add(left);
+            if (remaining[r] == 0 && productive.add(left)) {
+                worklist.add(left);
             }
         }
 
         // find indirectly productive symbols
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-
-            for (String rule : rules) {
-                String[] parts = rule.split("->");
-                String left = parts[0];
-                String right = parts[1];
-
-                if (!productive.contains(left)) {
-                    boolean allSymbolsProductive = true;
-
-                    for (int i = 0; i < right.length(); i++) {
-                        String symbol = right.substring(i, i + 1);
-
-                        boolean isTerminal = false;
-                        for (String term : terminals) {
-                            if (symbol.equals(term)) {
-                                isTerminal = true;
-                                break;
-                            }
-                        }
-
-                        if (!isTerminal && !productive.contains(symbol)) {
-                            allSymbolsProductive = false;
-                            break;
-                        }
-                    }
+        while (!worklist.isEmpty()) {
+            String symbol = worklist.poll();
 
-                    if (allSymbolsProductive) {
-                        productive.add(left);
-                        changed = true;
-                    }
+            for (int r : occurrences.getOrDefault(symbol, Collections.emptyList())) {
+                if (--remaining[r] == 0 && productive.add(lefts[r])) {
+                    worklist.add(lefts[r]);
                 }
             }
         }
 
-
+        // a rule is kept when its left side is productive and every symbol on its right side is
         List<String> newRules = new ArrayList<>();
 
-        for (String rule : rules) {
-            String[] parts = rule.split("->");
-            String left = parts[0];
-            String right = parts[1];
-
-            if (productive.contains(left)) {
-                boolean allSymbolsProductive = true;
-
-                for (int i = 0; i < right.length(); i++) {
-                    String symbol = right.substring(i, i + 1);
-
-                    boolean isTerminal = false;
-                    for (String term : terminals) {
-                        if (symbol.equals(term)) {
-                            isTerminal = true;
-                            break;
-                        }
-                    }
-
-                    if (!isTerminal && !productive.contains(symbol)) {
-                        allSymbolsProductive = false;
-                        break;
-                    }
-                }
-
-                if (allSymbolsProductive) {
-                    newRules.add(rule);
-                }
+        for (int r = 0; r < rules.length; r++) {
+            if (remaining[r] == 0 && productive.contains(lefts[r])) {
+                newRules.add(rules[r]);
             }
         }
 
@@ -390,41 +350,40 @@ class CNFConverter {
     }
 
     // step 4: Eliminate inaccessible symbols
-    private Grammar eliminateInaccessible(Grammar grammar) {
+    Grammar eliminateInaccessible(Grammar grammar) {
         String[] rules = grammar.getRules();
         String[] nonTerminals = grammar.getNonTerminals();
         String[] terminals = grammar.getTerminals();
         String startSymbol = grammar.getStartSymbol();
+        Set<String> nonTerminalSet = new HashSet<>(Arrays.asList(nonTerminals));
+
+        String[] lefts = new String[rules.length];
+        String[] rights = new String[rules.length];
+        Map<String, List<Integer>> rulesByLeft = new HashMap<>();
+        for (int r = 0; r < rules.length; r++) {
+            String[] parts = rules[r].split("->");
+            lefts[r] = parts[0];
+            rights[r] = parts[1];
+            rulesByLeft.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(r);
+        }
 
-        // find all accessible symbols
+        // find all accessible symbols, every rule is expanded once, when its left side is reached
         Set<String> accessible = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>();
         accessible.add(startSymbol);
+        worklist.add(startSymbol);
 
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-
-            for (String rule : rules) {
-                String[] parts = rule.split("->");
-                String left = parts[0];
-                String right = parts[1];
+        while (!worklist.isEmpty()) {
+            String left = worklist.poll();
 
-                if (accessible.contains(left)) {
-                    for (int i = 0; i < right.length(); i++) {
-                        String symbol = right.substring(i, i + 1);
+            for (int r : rulesByLeft.getOrDefault(left, Collections.emptyList())) {
+                String right = rights[r];
 
-                        boolean isNonTerminal = false;
-                        for (String nt : nonTerminals) {
-                            if (symbol.equals(nt)) {
-                                isNonTerminal = true;
-                                break;
-                            }
-                        }
+                for (int i = 0; i < right.length(); i++) {
+                    String symbol = right.substring(i, i + 1);
 
-                        if (isNonTerminal && !accessible.contains(symbol)) {
-                            accessible.add(symbol);
-                            changed = true;
-                        }
+                    if (nonTerminalSet.contains(symbol) && accessible.add(symbol)) {
+                        worklist.add(symbol);
                     }
                 }
             }
@@ -438,29 +397,35 @@ class CNFConverter {
             }
         }
 
-        // filter accessible terminals
+        // filter rules with accessible symbols, remembering which characters they use
+        List<String> accessibleRules = new ArrayList<>();
+        List<String> accessibleRights = new ArrayList<>();
+        Set<Character> usedCharacters = new HashSet<>();
+        for (int r = 0; r < rules.length; r++) {
+            if (accessible.contains(lefts[r])) {
+                accessibleRules.add(rules[r]);
+                accessibleRights.add(rights[r]);
+                for (int i = 0; i < rights[r].length(); i++) {
+                    usedCharacters.add(rights[r].charAt(i));
+                }
+            }
+        }
+
+        // filter accessible terminals, longer terminals still need a substring search
         Set<String> accessibleTerminals = new HashSet<>();
         for (String terminal : terminals) {
-            for (String rule : rules) {
-                String[] parts = rule.split("->");
-                String left = parts[0];
-                String right = parts[1];
-
-                if (accessible.contains(left) && right.contains(terminal)) {
+            if (terminal.length() == 1) {
+                if (usedCharacters.contains(terminal.charAt(0))) {
                     accessibleTerminals.add(terminal);
-                    break;
                 }
+                continue;
             }
-        }
 
-        // filter rules with accessible symbols
-        List<String> accessibleRules = new ArrayList<>();
-        for (String rule : rules) {
-            String[] parts = rule.split("->");
-            String left = parts[0];
-
-            if (accessible.contains(left)) {
-                accessibleRules.add(rule);
+            for (String right : accessibleRights) {
+                if (right.contains(terminal)) {
+                    accessibleTerminals.add(terminal);
+                    break;
+                }
             }
         }
 
@@ -598,4 +563,18 @@ class CNFConverter {
         cnfRules.add(left + "->" + firstSymbol + ySymbol);
     }
 
-}
\ No newline at end of file
+    // the original step by step trace: every intermediate grammar, the final one is left to the caller
+    private static final class ConsoleListener implements ConversionListener {
+        @Override
+        public void stepStarted(int step, String name, Grammar input) {
+            System.out.println("\nStep " + step + ": " + name);
+        }
+
+        @Override
+        public void stepFinished(StepMetrics metrics, Grammar output) {
+            if (metrics.getStep() < STEP_COUNT) {
+                System.out.println(output);
+            }
+        }
+    }
+}
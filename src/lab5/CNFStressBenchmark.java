@@ -0,0 +1,101 @@
+package lab5;
+
+import java.util.Random;
+
+// times the nullable / productive / accessible analyses on generated grammars. each analysis is a
+// worklist over per-rule counters, so doubling the grammar should roughly double the time
+public class CNFStressBenchmark {
+    private static final int[] DEFAULT_SIZES = {12_500, 25_000, 50_000};
+    private static final int NON_TERMINALS = 5_000;
+    private static final int ROUNDS = 5;
+    private static final String RESERVED = "ε->|";     // rule syntax, never used as a nonterminal
+
+    // usage: CNFStressBenchmark [productions ...]
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        CNFConverter converter = new CNFConverter();
+        IntCNFConverter interned = new IntCNFConverter();
+
+        for (int size : sizes) {
+            Grammar grammar = generate(new Random(size), size);
+            IntGrammar intGrammar = IntGrammar.fromGrammar(grammar);
+            System.out.println("\n" + size + " productions, " + grammar.getNonTerminals().length + " nonterminals");
+
+            report("nullable", () -> converter.findNullableSymbols(grammar).size());
+            report("productive", () -> converter.eliminateNonproductive(grammar).getNonTerminals().length);
+            report("accessible", () -> converter.eliminateInaccessible(grammar).getNonTerminals().length);
+            report("nullable (interned)", () -> count(interned.findNullable(intGrammar)));
+            report("productive (interned)", () -> count(interned.findProductive(intGrammar)));
+            report("accessible (interned)", () -> count(interned.findAccessible(intGrammar)));
+        }
+    }
+
+    private static void report(String name, Analysis analysis) {
+        long best = Long.MAX_VALUE;
+        int result = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            result = analysis.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("  %-22s %9.2f ms  (result %d)%n", name, best / 1e6, result);
+    }
+
+    private static int count(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // single-character nonterminals from U+0100 up so the string converter can read them, skipping the
+    // RESERVED characters. rules mostly point at lower numbered nonterminals so productivity and
+    // nullability propagate in long chains
+    static Grammar generate(Random random, int productions) {
+        String[] nonTerminals = new String[NON_TERMINALS];
+        char next = 0x100;
+        for (int i = 0; i < NON_TERMINALS; i++) {
+            while (RESERVED.indexOf(next) >= 0) {
+                next++;
+            }
+            nonTerminals[i] = String.valueOf(next++);
+        }
+        String[] terminals = {"a", "b", "c"};
+
+        String[] rules = new String[productions];
+        for (int r = 0; r < productions; r++) {
+            int left = r < NON_TERMINALS ? NON_TERMINALS - 1 - r : random.nextInt(NON_TERMINALS);
+            StringBuilder rule = new StringBuilder(nonTerminals[left]).append("->");
+
+            int length = random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(4);
+            if (length == 0) {
+                rule.append("ε");
+            }
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(4) == 0) {
+                    rule.append(terminals[random.nextInt(terminals.length)]);
+                } else {
+                    int target = left == 0 ? 0 : random.nextInt(left + 1);
+                    rule.append(nonTerminals[random.nextInt(8) == 0 ? random.nextInt(NON_TERMINALS) : target]);
+                }
+            }
+            rules[r] = rule.toString();
+        }
+
+        return new Grammar(nonTerminals, terminals, rules, nonTerminals[NON_TERMINALS - 1]);
+    }
+
+    private interface Analysis {
+        int run();
+    }
+}
@@ -0,0 +1,90 @@
+package lab5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class CYKBenchmark {
+    private static final int[] DEFAULT_LENGTHS = {100, 250, 500, 1000};
+    private static final long TIME_BUDGET_NANOS = 2_000_000_000L;
+
+    // usage: CYKBenchmark [length ...], e.g. CYKBenchmark 100 1000 2000 5000.
+    // CYK is cubic, a single 5000 character parse takes minutes on one core
+    public static void main(String[] args) {
+        int[] lengths = DEFAULT_LENGTHS;
+        if (args.length > 0) {
+            lengths = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                lengths[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // balanced brackets over a/b, already in CNF
+        Grammar dyck = new Grammar(
+                new String[]{"S", "L", "R", "X"},
+                new String[]{"a", "b"},
+                new String[]{"S->SS", "S->LR", "S->LX", "X->SR", "L->a", "R->b"},
+                "S");
+
+        List<Integer> threadCounts = new ArrayList<>();
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        Random random = new Random(42);
+        for (int length : lengths) {
+            String input = balanced(random, length);
+            System.out.println("\nInput length " + input.length());
+
+            double baseline = 0;
+            for (int threads : threadCounts) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    CYKParser parser = new CYKParser(dyck, pool);
+                    if (!parser.accepts(input)) {
+                        throw new IllegalStateException("Balanced input was rejected");
+                    }
+
+                    int parses = 0;
+                    long start = System.nanoTime();
+                    long elapsed;
+                    do {
+                        parser.accepts(input);
+                        parses++;
+                        elapsed = System.nanoTime() - start;
+                    } while (elapsed < TIME_BUDGET_NANOS);
+
+                    double perSecond = parses / (elapsed / 1e9);
+                    if (threads == 1) {
+                        baseline = perSecond;
+                    }
+                    System.out.printf("  %2d threads: %10.3f parses/s, %12.0f chars/s, speedup %.2fx%n",
+                            threads, perSecond, perSecond * input.length(), perSecond / baseline);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    private static String balanced(Random random, int length) {
+        int pairs = Math.max(1, length / 2);
+        StringBuilder sb = new StringBuilder(pairs * 2);
+        int open = 0;
+        int remainingOpens = pairs;
+        while (sb.length() < pairs * 2) {
+            if (remainingOpens > 0 && (open == 0 || random.nextBoolean())) {
+                sb.append('a');
+                open++;
+                remainingOpens--;
+            } else {
+                sb.append('b');
+                open--;
+            }
+        }
+        return sb.toString();
+    }
+}
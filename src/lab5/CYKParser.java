@@ -0,0 +1,338 @@
+package lab5;
+
+import java.io.Serial;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// CYK membership/parse over a grammar in Chomsky normal form, e.g. the output of CNFConverter.
+// every chart cell is a bitset of nonterminals, and the cells of one diagonal (all substrings of the
+// same length) only depend on shorter diagonals, so each diagonal is filled in parallel
+class CYKParser {
+    private static final int SEQUENTIAL_WORK = 1 << 14;   // below this many split checks a diagonal runs inline
+
+    private final String[] symbols;
+    private final int start;
+    private final int words;
+
+    private final Map<Character, long[]> terminalRules = new HashMap<>();   // a -> {A | A->a}
+    private final int[] pairStart;      // CSR by B of the (A, C) pairs of rules A->BC
+    private final int[] pairs;
+    private final long[][] unitParents; // A -> {X | X =>+ A through unit rules}, null if none
+    private final int[][] binaryRulesByLeft;  // A -> flattened (B, C) pairs, used to rebuild a tree
+
+    private final ForkJoinPool pool;
+
+    CYKParser(Grammar grammar) {
+        this(grammar, ForkJoinPool.commonPool());
+    }
+
+    CYKParser(Grammar grammar, ForkJoinPool pool) {
+        this.pool = pool;
+
+        Map<String, Integer> index = new LinkedHashMap<>();
+        for (String nt : grammar.getNonTerminals()) {
+            index.putIfAbsent(nt, index.size());
+        }
+        for (String rule : grammar.getRules()) {
+            index.putIfAbsent(rule.split("->")[0], index.size());
+        }
+        this.symbols = index.keySet().toArray(new String[0]);
+        this.words = Math.max(1, (symbols.length + 63) >>> 6);
+        this.start = index.getOrDefault(grammar.getStartSymbol(), -1);
+
+        // longest match first, so "Y12" is not read as "Y1" followed by '2'
+        List<String> vocabulary = new ArrayList<>(index.keySet());
+        vocabulary.addAll(Arrays.asList(grammar.getTerminals()));
+        vocabulary.sort((a, b) -> b.length() - a.length());
+        Set<String> terminals = new HashSet<>(Arrays.asList(grammar.getTerminals()));
+
+        List<int[]> binary = new ArrayList<>();
+        List<int[]> unit = new ArrayList<>();
+        for (String rule : grammar.getRules()) {
+            String[] parts = rule.split("->");
+            int left = index.get(parts[0]);
+            List<String> right = splitSymbols(parts[1], vocabulary);
+
+            if (right.size() == 1 && terminals.contains(right.get(0)) && right.get(0).length() == 1) {
+                terminalRules.computeIfAbsent(right.get(0).charAt(0), k -> new long[words]);
+                set(terminalRules.get(right.get(0).charAt(0)), 0, left);
+            } else if (right.size() == 1 && index.containsKey(right.get(0))) {
+                unit.add(new int[]{left, index.get(right.get(0))});
+            } else if (right.size() == 2 && index.containsKey(right.get(0)) && index.containsKey(right.get(1))) {
+                binary.add(new int[]{left, index.get(right.get(0)), index.get(right.get(1))});
+            } else {
+                throw new IllegalArgumentException("Rule is not in Chomsky normal form: " + rule);
+            }
+        }
+
+        int n = symbols.length;
+        this.pairStart = new int[n + 1];
+        for (int[] rule : binary) {
+            pairStart[rule[1] + 1]++;
+        }
+        for (int b = 0; b < n; b++) {
+            pairStart[b + 1] += pairStart[b];
+        }
+        this.pairs = new int[binary.size() * 2];
+        int[] fill = Arrays.copyOf(pairStart, n);
+        List<List<Integer>> byLeft = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            byLeft.add(new ArrayList<>());
+        }
+        for (int[] rule : binary) {
+            int position = fill[rule[1]]++;
+            pairs[position * 2] = rule[0];
+            pairs[position * 2 + 1] = rule[2];
+            byLeft.get(rule[0]).add(rule[1]);
+            byLeft.get(rule[0]).add(rule[2]);
+        }
+        this.binaryRulesByLeft = new int[n][];
+        for (int a = 0; a < n; a++) {
+            binaryRulesByLeft[a] = byLeft.get(a).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.unitParents = unitClosure(unit, n);
+    }
+
+    boolean accepts(String input) {
+        if (start < 0 || input.isEmpty()) {
+            return false;
+        }
+        Chart chart = fill(input);
+        return chart != null && get(chart.cells, chart.index(0, input.length()), start);
+    }
+
+    // one leftmost parse tree in bracket notation, e.g. S(A(a) B(b)), or null if the input is rejected
+    String parseTree(String input) {
+        if (start < 0 || input.isEmpty()) {
+            return null;
+        }
+        Chart chart = fill(input);
+        if (chart == null || !get(chart.cells, chart.index(0, input.length()), start)) {
+            return null;
+        }
+        StringBuilder tree = new StringBuilder();
+        buildTree(chart, input, start, 0, input.length(), new long[words], tree);
+        return tree.toString();
+    }
+
+    private Chart fill(String input) {
+        int n = input.length();
+        Chart chart = new Chart(n, words);
+
+        for (int i = 0; i < n; i++) {
+            long[] lhs = terminalRules.get(input.charAt(i));
+            if (lhs == null) {
+                return null;
+            }
+            int base = chart.index(i, 1) * words;
+            System.arraycopy(lhs, 0, chart.cells, base, words);
+            closeUnits(chart.cells, base);
+        }
+
+        for (int length = 2; length <= n; length++) {
+            int cells = n - length + 1;
+            if ((long) cells * (length - 1) < SEQUENTIAL_WORK || pool.getParallelism() == 1) {
+                for (int i = 0; i < cells; i++) {
+                    fillCell(chart, i, length);
+                }
+            } else {
+                pool.invoke(new DiagonalTask(chart, length, 0, cells));
+            }
+        }
+
+        return chart;
+    }
+
+    private void fillCell(Chart chart, int i, int length) {
+        long[] cells = chart.cells;
+        int target = chart.index(i, length) * words;
+
+        for (int split = 1; split < length; split++) {
+            int left = chart.index(i, split) * words;
+            int right = chart.index(i + split, length - split) * words;
+
+            for (int w = 0; w < words; w++) {
+                long bits = cells[left + w];
+                while (bits != 0) {
+                    int b = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    for (int p = pairStart[b]; p < pairStart[b + 1]; p++) {
+                        int c = pairs[p * 2 + 1];
+                        if (get(cells, right, c)) {
+                            set(cells, target, pairs[p * 2]);
+                        }
+                    }
+                }
+            }
+        }
+
+        closeUnits(cells, target);
+    }
+
+    // adds every X with X =>+ A for each A already in the cell
+    private void closeUnits(long[] cells, int base) {
+        for (int w = 0; w < words; w++) {
+            long bits = cells[base + w];
+            while (bits != 0) {
+                int a = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long[] parents = unitParents[a];
+                if (parents != null) {
+                    for (int v = 0; v < words; v++) {
+                        cells[base + v] |= parents[v];
+                    }
+                }
+            }
+        }
+    }
+
+    private void buildTree(Chart chart, String input, int symbol, int i, int length, long[] unitsSeen,
+                           StringBuilder tree) {
+        tree.append(symbols[symbol]).append('(');
+        long[] cells = chart.cells;
+
+        if (length == 1) {
+            long[] lhs = terminalRules.get(input.charAt(i));
+            if (get(lhs, 0, symbol)) {
+                tree.append(input.charAt(i)).append(')');
+                return;
+            }
+        } else {
+            int[] rules = binaryRulesByLeft[symbol];
+            for (int split = 1; split < length; split++) {
+                int left = chart.index(i, split) * words;
+                int right = chart.index(i + split, length - split) * words;
+                for (int r = 0; r < rules.length; r += 2) {
+                    if (get(cells, left, rules[r]) && get(cells, right, rules[r + 1])) {
+                        buildTree(chart, input, rules[r], i, split, new long[words], tree);
+                        tree.append(' ');
+                        buildTree(chart, input, rules[r + 1], i + split, length - split, new long[words], tree);
+                        tree.append(')');
+                        return;
+                    }
+                }
+            }
+        }
+
+        // only reachable through a unit rule A->B, unitsSeen guards against unit cycles
+        set(unitsSeen, 0, symbol);
+        int cell = chart.index(i, length) * words;
+        for (int b = 0; b < symbols.length; b++) {
+            if (!get(unitsSeen, 0, b) && get(cells, cell, b) && unitParents[b] != null && get(unitParents[b], 0, symbol)) {
+                buildTree(chart, input, b, i, length, unitsSeen, tree);
+                tree.append(')');
+                return;
+            }
+        }
+        throw new IllegalStateException("Chart is inconsistent at " + symbols[symbol] + " [" + i + ", " + length + "]");
+    }
+
+    private static long[][] unitClosure(List<int[]> unit, int n) {
+        List<List<Integer>> parentsOf = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            parentsOf.add(new ArrayList<>());
+        }
+        for (int[] rule : unit) {
+            parentsOf.get(rule[1]).add(rule[0]);
+        }
+
+        int words = Math.max(1, (n + 63) >>> 6);
+        long[][] closure = new long[n][];
+        for (int a = 0; a < n; a++) {
+            if (parentsOf.get(a).isEmpty()) {
+                continue;
+            }
+            long[] reached = new long[words];
+            Deque<Integer> queue = new ArrayDeque<>(parentsOf.get(a));
+            while (!queue.isEmpty()) {
+                int x = queue.poll();
+                if (!get(reached, 0, x)) {
+                    set(reached, 0, x);
+                    queue.addAll(parentsOf.get(x));
+                }
+            }
+            closure[a] = reached;
+        }
+        return closure;
+    }
+
+    private static List<String> splitSymbols(String right, List<String> vocabulary) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        while (i < right.length()) {
+            String match = null;
+            for (String symbol : vocabulary) {
+                if (right.startsWith(symbol, i)) {
+                    match = symbol;
+                    break;
+                }
+            }
+            if (match == null) {
+                match = right.substring(i, i + 1);
+            }
+            result.add(match);
+            i += match.length();
+        }
+        return result;
+    }
+
+    private static boolean get(long[] bits, int base, int index) {
+        return (bits[base + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int base, int index) {
+        bits[base + (index >>> 6)] |= 1L << index;
+    }
+
+    // triangular chart: the cells of each substring length are stored next to each other
+    private static final class Chart {
+        final int n;
+        final long[] cells;
+
+        Chart(int n, int words) {
+            this.n = n;
+            long cellCount = (long) n * (n + 1) / 2;
+            if (cellCount * words > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Input of length " + n + " is too long for the CYK chart");
+            }
+            this.cells = new long[(int) (cellCount * words)];
+        }
+
+        // cell of the substring starting at i with the given length
+        int index(int i, int length) {
+            // lengths 1 .. length-1 hold n, n-1, ..., n-length+2 cells
+            return (length - 1) * n - (length - 1) * (length - 2) / 2 + i;
+        }
+    }
+
+    private final class DiagonalTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Chart chart;
+        private final int length;
+        private final int from;
+        private final int to;
+
+        DiagonalTask(Chart chart, int length, int from, int to) {
+            this.chart = chart;
+            this.length = length;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (to - from) * (length - 1) <= SEQUENTIAL_WORK || to - from == 1) {
+                for (int i = from; i < to; i++) {
+                    fillCell(chart, i, length);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DiagonalTask(chart, length, from, middle), new DiagonalTask(chart, length, middle, to));
+        }
+    }
+}
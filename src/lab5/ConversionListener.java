@@ -0,0 +1,14 @@
+package lab5;
+
+// observes CNFConverter.convert step by step. both callbacks run on the converting thread, so the
+// time a listener spends is not part of the step's metrics but does delay the conversion
+interface ConversionListener {
+    ConversionListener NONE = new ConversionListener() {
+    };
+
+    default void stepStarted(int step, String name, Grammar input) {
+    }
+
+    default void stepFinished(StepMetrics metrics, Grammar output) {
+    }
+}
@@ -0,0 +1,37 @@
+package lab5;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// ConversionListener that keeps the metrics of every step, e.g. for logging after a conversion
+class ConversionMetrics implements ConversionListener {
+    private final List<StepMetrics> steps = new ArrayList<>();
+
+    @Override
+    public void stepFinished(StepMetrics metrics, Grammar output) {
+        steps.add(metrics);
+    }
+
+    public List<StepMetrics> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public long getTotalWallNanos() {
+        long total = 0;
+        for (StepMetrics step : steps) {
+            total += step.getWallNanos();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (StepMetrics step : steps) {
+            sb.append(step).append('\n');
+        }
+        sb.append(String.format("Total: %.3f ms", getTotalWallNanos() / 1e6));
+        return sb.toString();
+    }
+}
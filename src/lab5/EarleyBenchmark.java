@@ -0,0 +1,109 @@
+package lab5;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Earley on the original grammar vs converting to CNF and running CYK, both single-threaded
+public class EarleyBenchmark {
+    private static final int[] DEFAULT_LENGTHS = {100, 250, 500, 1000};
+    private static final long TIME_BUDGET_NANOS = 1_000_000_000L;
+
+    // usage: EarleyBenchmark [length ...]
+    public static void main(String[] args) {
+        int[] lengths = DEFAULT_LENGTHS;
+        if (args.length > 0) {
+            lengths = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                lengths[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // left-recursive expression grammar, not in CNF
+        Grammar expressions = new Grammar(
+                new String[]{"E", "T", "F"},
+                new String[]{"a", "+", "*", "(", ")"},
+                new String[]{"E->E+T", "E->T", "T->T*F", "T->F", "F->(E)", "F->a"},
+                "E");
+
+        long start = System.nanoTime();
+        Grammar cnf = new IntCNFConverter().convertToCNF(expressions);
+        double conversionMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Original grammar: %d rules, %d nonterminals%n",
+                expressions.getRules().length, expressions.getNonTerminals().length);
+        System.out.printf("CNF grammar:      %d rules, %d nonterminals (converted in %.2f ms)%n",
+                cnf.getRules().length, cnf.getNonTerminals().length, conversionMillis);
+
+        EarleyParser earley = new EarleyParser(expressions);
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        try {
+            CYKParser cyk = new CYKParser(cnf, singleThread);
+            Random random = new Random(42);
+
+            for (int length : lengths) {
+                String input = expression(random, length);
+                if (!earley.accepts(input) || earley.parse(input) == null || !cyk.accepts(input)) {
+                    throw new IllegalStateException("Generated expression was rejected: " + input);
+                }
+                System.out.println("\nInput length " + input.length());
+                report("Earley recognizer (Leo)", input, () -> earley.accepts(input));
+                report("Earley + SPPF", input, () -> earley.parse(input) != null);
+                report("CNF + CYK", input, () -> cyk.accepts(input));
+            }
+
+            // right recursion: Leo items keep the recognizer chart linear
+            Grammar rightRecursive = new Grammar(new String[]{"S"}, new String[]{"a"},
+                    new String[]{"S->aS", "S->a"}, "S");
+            EarleyParser right = new EarleyParser(rightRecursive);
+            System.out.println("\nRight recursion S->aS|a, chart items:");
+            for (int length : new int[]{250, 500, 1000, 2000}) {
+                String input = "a".repeat(length);
+                right.accepts(input);
+                int withLeo = right.getItemCount();
+                right.parse(input);
+                System.out.printf("  length %5d: %8d with Leo items, %10d when building the SPPF%n",
+                        length, withLeo, right.getItemCount());
+            }
+        } finally {
+            singleThread.shutdown();
+        }
+    }
+
+    private static void report(String name, String input, Parse parse) {
+        int parses = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            parse.run();
+            parses++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < TIME_BUDGET_NANOS);
+
+        double perSecond = parses / (elapsed / 1e9);
+        System.out.printf("  %-24s %10.1f parses/s, %12.0f chars/s%n", name, perSecond, perSecond * input.length());
+    }
+
+    // random expression over a, +, * and parentheses with at least `length` characters
+    private static String expression(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 16);
+        int open = 0;
+        sb.append('a');
+        while (sb.length() < length) {
+            sb.append(random.nextBoolean() ? '+' : '*');
+            if (random.nextInt(4) == 0) {
+                sb.append('(');
+                open++;
+            }
+            sb.append('a');
+            if (open > 0 && random.nextInt(3) == 0) {
+                sb.append(')');
+                open--;
+            }
+        }
+        sb.append(")".repeat(open));
+        return sb.toString();
+    }
+
+    private interface Parse {
+        boolean run();
+    }
+}
@@ -0,0 +1,661 @@
+package lab5;
+
+import java.util.*;
+
+// Earley parser straight over the grammar rules, no CNF conversion needed. ε rules are handled by
+// advancing over nullable symbols at prediction time (Aycock-Horspool). accepts() uses Leo's
+// deterministic-reduction items, so right recursion stays linear, parse() builds a shared packed parse
+// forest following Scott's "SPPF-style parsing from Earley recognisers". chart items are (slot, origin,
+// sppf node) triples in parallel int arrays. not thread-safe, the chart arrays are reused between inputs
+class EarleyParser {
+    private static final int NONE = -1;
+
+    private final SymbolTable symbols;
+    private final int symbolCount;          // grammar symbols plus the augmented start S'
+    private final boolean[] terminal;
+    private final boolean[] nullable;
+    private final int[] terminalsByLength;  // terminal ids, longest name first, for tokenizing input
+
+    // dotted rules: slot = slotBase[rule] + dot, slotNext is the symbol after the dot or NONE
+    private final int[] slotRule;
+    private final int[] slotNext;
+    private final int[] slotBase;
+    private final int[] ruleLeft;
+    private final int[] rulesFrom;          // CSR by left side
+    private final int[] rulesByLeft;
+    private final int startSlot;            // S' -> .S
+    private final int acceptSlot;           // S' -> S.
+
+    // chart: items of set i are [setStart[i], setStart[i + 1])
+    private int[] itemSlot = new int[1024];
+    private int[] itemOrigin = new int[1024];
+    private int[] itemNode = new int[1024];
+    private int[] itemNextWaiter = new int[1024];   // next item of the same set with the same post-dot symbol
+    private int itemCount;
+    private int[] setStart = new int[64];
+    private int filling;                    // the set items are currently added to
+    private final TripleSet currentSet = new TripleSet();
+    private final LongIntMap waiters = new LongIntMap();     // (set, symbol) -> first waiting item
+    private final LongIntMap leoItems = new LongIntMap();    // (set, symbol) -> index into leo arrays or NONE
+    private int[] leoSlot = new int[64];
+    private int[] leoOrigin = new int[64];
+    private int leoCount;
+
+    // SPPF construction state
+    private int[] nodeLabel = new int[256];
+    private int[] nodeStart = new int[256];
+    private int[] nodeEnd = new int[256];
+    private int[] nodeFirstFamily = new int[256];
+    private int nodeCount;
+    private int[] familyLeft = new int[256];
+    private int[] familyRight = new int[256];
+    private int[] nextFamily = new int[256];
+    private int familyCount;
+    private final LongIntMap nodesEndingHere = new LongIntMap();   // (label, start) -> node, end = current set
+    private int[] nullableNode;             // H: symbol -> node (A, i, i), valid while nullableStamp == i + 1
+    private int[] nullableStamp;
+    private Queue scanQueue = new Queue();
+    private Queue nextScanQueue = new Queue();
+
+    EarleyParser(Grammar grammar) {
+        IntGrammar g = IntGrammar.fromGrammar(grammar);
+        this.symbols = g.symbols;
+        int grammarSymbols = symbols.size();
+        this.symbolCount = grammarSymbols + 1;
+        int augmented = grammarSymbols;
+
+        this.terminal = new boolean[symbolCount];
+        for (int s = 0; s < grammarSymbols; s++) {
+            terminal[s] = symbols.isTerminal(s);
+        }
+        this.nullable = Arrays.copyOf(new IntCNFConverter().findNullable(g), symbolCount);
+        nullable[augmented] = nullable[g.start];
+        this.terminalsByLength = Arrays.stream(g.terminals).boxed()
+                .filter(t -> !symbols.name(t).isEmpty())
+                .sorted((a, b) -> symbols.name(b).length() - symbols.name(a).length())
+                .mapToInt(Integer::intValue).toArray();
+
+        int ruleCount = g.productionCount() + 1;
+        this.ruleLeft = new int[ruleCount];
+        int[][] right = new int[ruleCount][];
+        for (int p = 0; p < g.productionCount(); p++) {
+            ruleLeft[p] = g.lhs[p];
+            right[p] = g.rhs[p];
+        }
+        ruleLeft[ruleCount - 1] = augmented;
+        right[ruleCount - 1] = new int[]{g.start};
+
+        this.slotBase = new int[ruleCount];
+        int slots = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            slotBase[r] = slots;
+            slots += right[r].length + 1;
+        }
+        this.slotRule = new int[slots];
+        this.slotNext = new int[slots];
+        for (int r = 0; r < ruleCount; r++) {
+            for (int dot = 0; dot <= right[r].length; dot++) {
+                slotRule[slotBase[r] + dot] = r;
+                slotNext[slotBase[r] + dot] = dot < right[r].length ? right[r][dot] : NONE;
+            }
+        }
+        this.startSlot = slotBase[ruleCount - 1];
+        this.acceptSlot = startSlot + 1;
+
+        this.rulesFrom = new int[symbolCount + 1];
+        for (int r = 0; r < ruleCount; r++) {
+            rulesFrom[ruleLeft[r] + 1]++;
+        }
+        for (int s = 0; s < symbolCount; s++) {
+            rulesFrom[s + 1] += rulesFrom[s];
+        }
+        this.rulesByLeft = new int[ruleCount];
+        int[] fill = Arrays.copyOf(rulesFrom, symbolCount);
+        for (int r = 0; r < ruleCount; r++) {
+            rulesByLeft[fill[ruleLeft[r]]++] = r;
+        }
+
+        this.nullableNode = new int[symbolCount];
+        this.nullableStamp = new int[symbolCount];
+    }
+
+    // recognizer with Leo items
+    boolean accepts(String input) {
+        int[] tokens = tokenize(input);
+        if (tokens == null) {
+            return false;
+        }
+        int n = tokens.length;
+        resetChart(n);
+        leoItems.clear();
+        leoCount = 0;
+
+        addItem(startSlot, 0, NONE);
+        for (int i = 0; i <= n; i++) {
+            for (int item = setStart[i]; item < itemCount; item++) {
+                int slot = itemSlot[item];
+                int origin = itemOrigin[item];
+                int next = slotNext[slot];
+
+                if (next == NONE) {
+                    // completions from the same set are covered by advancing over nullables below
+                    if (origin < i) {
+                        complete(ruleLeft[slotRule[slot]], origin);
+                    }
+                } else if (!terminal[next]) {
+                    for (int r = rulesFrom[next]; r < rulesFrom[next + 1]; r++) {
+                        addItem(slotBase[rulesByLeft[r]], i, NONE);
+                    }
+                    if (nullable[next]) {
+                        addItem(slot + 1, origin, NONE);
+                    }
+                }
+            }
+
+            if (i == n) {
+                break;
+            }
+            startSet(i + 1);
+            for (int w = waiters.get(key(i, tokens[i]), NONE); w != NONE; w = itemNextWaiter[w]) {
+                addItem(itemSlot[w] + 1, itemOrigin[w], NONE);
+            }
+            if (setStart[i + 1] == itemCount) {
+                return false;
+            }
+        }
+
+        return currentSet.contains(acceptSlot, 0, NONE);
+    }
+
+    private void complete(int symbol, int origin) {
+        int leo = topmost(origin, symbol);
+        if (leo != NONE) {
+            addItem(leoSlot[leo], leoOrigin[leo], NONE);
+            return;
+        }
+        for (int w = waiters.get(key(origin, symbol), NONE); w != NONE; w = itemNextWaiter[w]) {
+            addItem(itemSlot[w] + 1, itemOrigin[w], NONE);
+        }
+    }
+
+    // Leo's topmost item for completing `symbol` in set j: when j holds exactly one item waiting for
+    // it and the symbol is the last one of that rule, the completion is deterministic and can jump
+    // straight to the end of the chain. memoized per (set, symbol), frozen sets never change
+    private int topmost(int set, int symbol) {
+        int[] pendingSets = new int[8];
+        int[] pendingSymbols = new int[8];
+        int[] pendingCandidates = new int[8];
+        int depth = 0;
+        int result;
+
+        while (true) {
+            long k = key(set, symbol);
+            int known = leoItems.get(k, Integer.MIN_VALUE);
+            if (known != Integer.MIN_VALUE) {
+                result = known == Integer.MIN_VALUE + 1 ? NONE : known;   // in-progress means a unit cycle
+                break;
+            }
+
+            int w = waiters.get(k, NONE);
+            if (w == NONE || itemNextWaiter[w] != NONE || slotNext[itemSlot[w] + 1] != NONE) {
+                leoItems.put(k, NONE);
+                result = NONE;
+                break;
+            }
+
+            int candidate = addLeo(itemSlot[w] + 1, itemOrigin[w]);
+            leoItems.put(k, Integer.MIN_VALUE + 1);
+            if (depth == pendingSets.length) {
+                pendingSets = Arrays.copyOf(pendingSets, depth * 2);
+                pendingSymbols = Arrays.copyOf(pendingSymbols, depth * 2);
+                pendingCandidates = Arrays.copyOf(pendingCandidates, depth * 2);
+            }
+            pendingSets[depth] = set;
+            pendingSymbols[depth] = symbol;
+            pendingCandidates[depth] = candidate;
+            depth++;
+
+            symbol = ruleLeft[slotRule[itemSlot[w] + 1]];
+            set = itemOrigin[w];
+        }
+
+        // every pending (set, symbol) resolves to the item found above it, or to its own candidate
+        while (depth > 0) {
+            depth--;
+            if (result == NONE) {
+                result = pendingCandidates[depth];
+            }
+            leoItems.put(key(pendingSets[depth], pendingSymbols[depth]), result);
+        }
+        return result;
+    }
+
+    private int addLeo(int slot, int origin) {
+        if (leoCount == leoSlot.length) {
+            leoSlot = Arrays.copyOf(leoSlot, leoCount * 2);
+            leoOrigin = Arrays.copyOf(leoOrigin, leoCount * 2);
+        }
+        leoSlot[leoCount] = slot;
+        leoOrigin[leoCount] = origin;
+        return leoCount++;
+    }
+
+    // builds the shared packed parse forest, or returns null if the input is rejected
+    ParseForest parse(String input) {
+        int[] tokens = tokenize(input);
+        if (tokens == null) {
+            return null;
+        }
+        int n = tokens.length;
+        resetChart(n);
+        nodeCount = 0;
+        familyCount = 0;
+        nodesEndingHere.clear();
+        Arrays.fill(nullableStamp, 0);
+        scanQueue.clear();
+        nextScanQueue.clear();
+
+        addItem(startSlot, 0, NONE);
+        for (int i = 0; i <= n; i++) {
+            int stamp = i + 1;
+            int nextToken = i < n ? tokens[i] : NONE;
+
+            for (int item = setStart[i]; item < itemCount; item++) {
+                int slot = itemSlot[item];
+                int origin = itemOrigin[item];
+                int node = itemNode[item];
+                int next = slotNext[slot];
+
+                if (next != NONE) {
+                    // next is a nonterminal, items waiting on a terminal only live in the scan queues
+                    for (int r = rulesFrom[next]; r < rulesFrom[next + 1]; r++) {
+                        int first = slotBase[rulesByLeft[r]];
+                        int firstSymbol = slotNext[first];
+                        if (firstSymbol == NONE || !terminal[firstSymbol]) {
+                            addItem(first, i, NONE);
+                        } else if (firstSymbol == nextToken) {
+                            scanQueue.add(first, i, NONE);
+                        }
+                    }
+                    if (nullableStamp[next] == stamp) {
+                        int advanced = makeNode(slot + 1, origin, i, node, nullableNode[next]);
+                        advance(slot + 1, origin, advanced, nextToken);
+                    }
+                    continue;
+                }
+
+                int left = ruleLeft[slotRule[slot]];
+                if (node == NONE) {
+                    // A -> ε: the node (A, i, i) with a single ε family
+                    node = node(left, i, i);
+                    addFamily(node, NONE, NONE);
+                }
+                if (origin == i) {
+                    nullableNode[left] = node;
+                    nullableStamp[left] = stamp;
+                }
+                for (int w = waiters.get(key(origin, left), NONE); w != NONE; w = itemNextWaiter[w]) {
+                    int advanced = makeNode(itemSlot[w] + 1, itemOrigin[w], i, itemNode[w], node);
+                    advance(itemSlot[w] + 1, itemOrigin[w], advanced, nextToken);
+                }
+            }
+
+            if (i == n) {
+                break;
+            }
+
+            nodesEndingHere.clear();
+            startSet(i + 1);
+            int leaf = newNode(tokens[i], i, i + 1);
+            int followingToken = i + 1 < n ? tokens[i + 1] : NONE;
+            for (int q = 0; q < scanQueue.size; q++) {
+                int slot = scanQueue.slot[q] + 1;
+                int origin = scanQueue.origin[q];
+                int advanced = makeNode(slot, origin, i + 1, scanQueue.node[q], leaf);
+                int next = slotNext[slot];
+                if (next == NONE || !terminal[next]) {
+                    addItem(slot, origin, advanced);
+                } else if (next == followingToken) {
+                    nextScanQueue.add(slot, origin, advanced);
+                }
+            }
+
+            Queue swap = scanQueue;
+            scanQueue = nextScanQueue;
+            nextScanQueue = swap;
+            nextScanQueue.clear();
+
+            if (setStart[i + 1] == itemCount && scanQueue.size == 0) {
+                return null;
+            }
+        }
+
+        for (int item = setStart[n]; item < itemCount; item++) {
+            if (itemSlot[item] == acceptSlot && itemOrigin[item] == 0) {
+                // the S' node has the single family (S, 0, n)
+                int root = familyRight[nodeFirstFamily[itemNode[item]]];
+                String[] names = new String[symbolCount];
+                for (int s = 0; s < symbolCount - 1; s++) {
+                    names[s] = symbols.name(s);
+                }
+                names[symbolCount - 1] = "S'";
+                return new ParseForest(names, symbolCount, root, nodeLabel, nodeStart, nodeEnd, nodeFirstFamily,
+                        nodeCount, familyLeft, familyRight, nextFamily, familyCount);
+            }
+        }
+        return null;
+    }
+
+    // puts an advanced item where it belongs: the current set if it is complete or waits on a
+    // nonterminal, the scan queue if it waits on the next token, nowhere if it cannot scan
+    private void advance(int slot, int origin, int node, int nextToken) {
+        int next = slotNext[slot];
+        if (next == NONE || !terminal[next]) {
+            addItem(slot, origin, node);
+        } else if (next == nextToken) {
+            scanQueue.add(slot, origin, node);
+        }
+    }
+
+    // MAKE_NODE: the SPPF node for `slot` (dot just moved over a symbol) spanning [origin, end)
+    private int makeNode(int slot, int origin, int end, int leftNode, int rightNode) {
+        int rule = slotRule[slot];
+        boolean complete = slotNext[slot] == NONE;
+        if (!complete && slot == slotBase[rule] + 1) {
+            return rightNode;       // A -> X.β with β non-empty needs no node of its own
+        }
+
+        int label = complete ? ruleLeft[rule] : symbolCount + slot;
+        int node = node(label, origin, end);
+        addFamily(node, leftNode, rightNode);
+        return node;
+    }
+
+    // the node (label, start, current set), created on first use
+    private int node(int label, int start, int end) {
+        long k = key(label, start);
+        int node = nodesEndingHere.get(k, NONE);
+        if (node == NONE) {
+            node = newNode(label, start, end);
+            nodesEndingHere.put(k, node);
+        }
+        return node;
+    }
+
+    private int newNode(int label, int start, int end) {
+        if (nodeCount == nodeLabel.length) {
+            int capacity = nodeCount * 2;
+            nodeLabel = Arrays.copyOf(nodeLabel, capacity);
+            nodeStart = Arrays.copyOf(nodeStart, capacity);
+            nodeEnd = Arrays.copyOf(nodeEnd, capacity);
+            nodeFirstFamily = Arrays.copyOf(nodeFirstFamily, capacity);
+        }
+        nodeLabel[nodeCount] = label;
+        nodeStart[nodeCount] = start;
+        nodeEnd[nodeCount] = end;
+        nodeFirstFamily[nodeCount] = NONE;
+        return nodeCount++;
+    }
+
+    private void addFamily(int node, int left, int right) {
+        for (int f = nodeFirstFamily[node]; f != NONE; f = nextFamily[f]) {
+            if (familyLeft[f] == left && familyRight[f] == right) {
+                return;
+            }
+        }
+        if (familyCount == familyLeft.length) {
+            int capacity = familyCount * 2;
+            familyLeft = Arrays.copyOf(familyLeft, capacity);
+            familyRight = Arrays.copyOf(familyRight, capacity);
+            nextFamily = Arrays.copyOf(nextFamily, capacity);
+        }
+        familyLeft[familyCount] = left;
+        familyRight[familyCount] = right;
+        nextFamily[familyCount] = nodeFirstFamily[node];
+        nodeFirstFamily[node] = familyCount++;
+    }
+
+    // number of chart items of the last accepts/parse call, e.g. to compare Leo on right recursion
+    int getItemCount() {
+        return itemCount;
+    }
+
+    private void resetChart(int n) {
+        if (setStart.length < n + 2) {
+            setStart = new int[n + 2];
+        }
+        itemCount = 0;
+        waiters.clear();
+        startSet(0);
+    }
+
+    private void startSet(int set) {
+        setStart[set] = itemCount;
+        filling = set;
+        currentSet.clear();
+    }
+
+    private void addItem(int slot, int origin, int node) {
+        if (!currentSet.add(slot, origin, node)) {
+            return;
+        }
+        if (itemCount == itemSlot.length) {
+            int capacity = itemCount * 2;
+            itemSlot = Arrays.copyOf(itemSlot, capacity);
+            itemOrigin = Arrays.copyOf(itemOrigin, capacity);
+            itemNode = Arrays.copyOf(itemNode, capacity);
+            itemNextWaiter = Arrays.copyOf(itemNextWaiter, capacity);
+        }
+        int item = itemCount++;
+        itemSlot[item] = slot;
+        itemOrigin[item] = origin;
+        itemNode[item] = node;
+        itemNextWaiter[item] = NONE;
+
+        int next = slotNext[slot];
+        if (next != NONE) {
+            long k = key(filling, next);
+            itemNextWaiter[item] = waiters.get(k, NONE);
+            waiters.put(k, item);
+        }
+    }
+
+    // longest-match split of the input into terminal ids, null if some part matches no terminal
+    private int[] tokenize(String input) {
+        int[] tokens = new int[input.length()];
+        int count = 0;
+        int i = 0;
+        while (i < input.length()) {
+            int match = NONE;
+            for (int t : terminalsByLength) {
+                if (input.startsWith(symbols.name(t), i)) {
+                    match = t;
+                    break;
+                }
+            }
+            if (match == NONE) {
+                return null;
+            }
+            tokens[count++] = match;
+            i += symbols.name(match).length();
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    // items waiting to scan the next token
+    private static final class Queue {
+        int[] slot = new int[64];
+        int[] origin = new int[64];
+        int[] node = new int[64];
+        int size;
+        private final TripleSet seen = new TripleSet();
+
+        void add(int s, int o, int n) {
+            if (!seen.add(s, o, n)) {
+                return;
+            }
+            if (size == slot.length) {
+                slot = Arrays.copyOf(slot, size * 2);
+                origin = Arrays.copyOf(origin, size * 2);
+                node = Arrays.copyOf(node, size * 2);
+            }
+            slot[size] = s;
+            origin[size] = o;
+            node[size] = n;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+            seen.clear();
+        }
+    }
+
+    // open-addressing set of int triples, cleared in O(1) by bumping a generation stamp
+    private static final class TripleSet {
+        private int[] a = new int[256];
+        private int[] b = new int[256];
+        private int[] c = new int[256];
+        private int[] stamp = new int[256];
+        private int generation = 1;
+        private int size;
+
+        boolean add(int x, int y, int z) {
+            if ((size + 1) * 2 > stamp.length) {
+                grow();
+            }
+            int mask = stamp.length - 1;
+            int h = hash(x, y, z) & mask;
+            while (stamp[h] == generation) {
+                if (a[h] == x && b[h] == y && c[h] == z) {
+                    return false;
+                }
+                h = (h + 1) & mask;
+            }
+            stamp[h] = generation;
+            a[h] = x;
+            b[h] = y;
+            c[h] = z;
+            size++;
+            return true;
+        }
+
+        boolean contains(int x, int y, int z) {
+            int mask = stamp.length - 1;
+            int h = hash(x, y, z) & mask;
+            while (stamp[h] == generation) {
+                if (a[h] == x && b[h] == y && c[h] == z) {
+                    return true;
+                }
+                h = (h + 1) & mask;
+            }
+            return false;
+        }
+
+        void clear() {
+            generation++;
+            size = 0;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        private void grow() {
+            int[] oldA = a, oldB = b, oldC = c, oldStamp = stamp;
+            int capacity = stamp.length * 2;
+            a = new int[capacity];
+            b = new int[capacity];
+            c = new int[capacity];
+            stamp = new int[capacity];
+            int oldGeneration = generation;
+            generation = 1;
+            size = 0;
+            for (int i = 0; i < oldStamp.length; i++) {
+                if (oldStamp[i] == oldGeneration) {
+                    add(oldA[i], oldB[i], oldC[i]);
+                }
+            }
+        }
+
+        private static int hash(int x, int y, int z) {
+            int h = x * 0x9E3779B1 + y * 0x85EBCA77 + z * 0xC2B2AE3D;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    // open-addressing long -> int map without boxing, cleared in O(1) like TripleSet
+    private static final class LongIntMap {
+        private long[] keys = new long[256];
+        private int[] values = new int[256];
+        private int[] stamp = new int[256];
+        private int generation = 1;
+        private int size;
+
+        int get(long key, int missing) {
+            int mask = keys.length - 1;
+            int h = hash(key) & mask;
+            while (stamp[h] == generation) {
+                if (keys[h] == key) {
+                    return values[h];
+                }
+                h = (h + 1) & mask;
+            }
+            return missing;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int h = hash(key) & mask;
+            while (stamp[h] == generation) {
+                if (keys[h] == key) {
+                    values[h] = value;
+                    return;
+                }
+                h = (h + 1) & mask;
+            }
+            stamp[h] = generation;
+            keys[h] = key;
+            values[h] = value;
+            size++;
+        }
+
+        void clear() {
+            generation++;
+            size = 0;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            int[] oldStamp = stamp;
+            int oldGeneration = generation;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            stamp = new int[oldKeys.length * 2];
+            generation = 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStamp[i] == oldGeneration) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package lab5;
+
+import java.util.*;
+
+// the CNFConverter steps on the interned IntGrammar model, in the same order.
+// every analysis is a worklist over per-production counters and reverse occurrence indices, so each
+// production is touched a constant number of times per step. the rewriting steps are bounded by the
+// size of their output instead, which for ε-elimination is exponential: a rule with k nullable symbols
+// expands into up to 2^k rules. BoundedCNFConverter binarizes first and stays polynomial
+class IntCNFConverter {
+
+    Grammar convertToCNF(Grammar grammar) {
+        return convertToCNF(IntGrammar.fromGrammar(grammar)).toGrammar();
+    }
+
+    IntGrammar convertToCNF(IntGrammar grammar) {
+        IntGrammar result = eliminateEpsilonProductions(grammar);
+        result = eliminateRenaming(result);
+        result = eliminateNonproductive(result);
+        result = eliminateInaccessible(result);
+        return convertToChomsky(result);
+    }
+
+    // step 1: Eliminate ε productions. O(2^k) rules per production with k nullable symbols, which is
+    // why k is capped at 30; use CNFConverter.convertToCNF(grammar, maxProductions) for untrusted input
+    IntGrammar eliminateEpsilonProductions(IntGrammar grammar) {
+        boolean[] nullable = findNullable(grammar);
+        ProductionSet out = new ProductionSet();
+
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            int[] right = grammar.rhs[p];
+            if (right.length == 0) {
+                continue;
+            }
+
+            int nullableCount = 0;
+            for (int symbol : right) {
+                if (nullable[symbol]) {
+                    nullableCount++;
+                }
+            }
+            if (nullableCount == 0) {
+                out.add(grammar.lhs[p], right);
+                continue;
+            }
+            if (nullableCount >= 31) {
+                throw new IllegalArgumentException("Rule has too many nullable symbols to expand: " + nullableCount);
+            }
+
+            // every subset of nullable positions may be dropped, except dropping the whole rule
+            int[] positions = new int[nullableCount];
+            int k = 0;
+            for (int i = 0; i < right.length; i++) {
+                if (nullable[right[i]]) {
+                    positions[k++] = i;
+                }
+            }
+            int[] buffer = new int[right.length];
+            for (int mask = 0; mask < (1 << nullableCount); mask++) {
+                int length = 0;
+                int next = 0;
+                for (int i = 0; i < right.length; i++) {
+                    if (next < nullableCount && positions[next] == i) {
+                        boolean drop = (mask & (1 << next)) != 0;
+                        next++;
+                        if (drop) {
+                            continue;
+                        }
+                    }
+                    buffer[length++] = right[i];
+                }
+                if (length > 0) {
+                    out.add(grammar.lhs[p], Arrays.copyOf(buffer, length));
+                }
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, grammar.nonTerminals, grammar.terminals);
+    }
+
+    boolean[] findNullable(IntGrammar grammar) {
+        int symbolCount = grammar.symbols.size();
+        int[] remaining = new int[grammar.productionCount()];
+        boolean[] nullable = new boolean[symbolCount];
+        int[] worklist = new int[symbolCount];
+        int size = 0;
+
+        // a production can only make its lhs nullable if every rhs symbol is a nonterminal
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            remaining[p] = grammar.rhs[p].length;
+            for (int symbol : grammar.rhs[p]) {
+                if (grammar.symbols.isTerminal(symbol)) {
+                    remaining[p] = -1;
+                    break;
+                }
+            }
+            if (remaining[p] == 0 && !nullable[grammar.lhs[p]]) {
+                nullable[grammar.lhs[p]] = true;
+                worklist[size++] = grammar.lhs[p];
+            }
+        }
+
+        int[][] occurrences = occurrenceIndex(grammar);
+        while (size > 0) {
+            int symbol = worklist[--size];
+            for (int i = occurrences[0][symbol]; i < occurrences[0][symbol + 1]; i++) {
+                int p = occurrences[1][i];
+                if (remaining[p] > 0 && --remaining[p] == 0 && !nullable[grammar.lhs[p]]) {
+                    nullable[grammar.lhs[p]] = true;
+                    worklist[size++] = grammar.lhs[p];
+                }
+            }
+        }
+        return nullable;
+    }
+
+    // step 2: Eliminate renaming productions
+    IntGrammar eliminateRenaming(IntGrammar grammar) {
+        int symbolCount = grammar.symbols.size();
+        int[][] byLeft = grammar.productionsByLeft();
+        int[] from = byLeft[0];
+        int[] order = byLeft[1];
+        ProductionSet out = new ProductionSet();
+
+        boolean[] declared = new boolean[symbolCount];
+        for (int a : grammar.nonTerminals) {
+            declared[a] = true;
+        }
+        int[] seen = new int[symbolCount];
+        Arrays.fill(seen, -1);
+        int[] queue = new int[symbolCount];
+
+        for (int a : grammar.nonTerminals) {
+            // every B with A =>* B through renamings contributes its non-renaming productions to A
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = a;
+            seen[a] = a;
+            while (head < tail) {
+                int b = queue[head++];
+                for (int i = from[b]; i < from[b + 1]; i++) {
+                    int p = order[i];
+                    int[] right = grammar.rhs[p];
+                    if (isRenaming(right, declared)) {
+                        if (seen[right[0]] != a) {
+                            seen[right[0]] = a;
+                            queue[tail++] = right[0];
+                        }
+                    } else {
+                        out.add(a, right);
+                    }
+                }
+            }
+        }
+
+        // productions of symbols that are not declared nonterminals are kept as they are
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            if (!declared[grammar.lhs[p]] && !isRenaming(grammar.rhs[p], declared)) {
+                out.add(grammar.lhs[p], grammar.rhs[p]);
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, grammar.nonTerminals, grammar.terminals);
+    }
+
+    private static boolean isRenaming(int[] right, boolean[] declared) {
+        return right.length == 1 && declared[right[0]];
+    }
+
+    // step 3: Eliminate nonproductive symbols
+    IntGrammar eliminateNonproductive(IntGrammar grammar) {
+        boolean[] productive = findProductive(grammar);
+
+        ProductionSet out = new ProductionSet();
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            if (productive[grammar.lhs[p]] && allProductive(grammar, grammar.rhs[p], productive)) {
+                out.add(grammar.lhs[p], grammar.rhs[p]);
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, filter(grammar.nonTerminals, productive), grammar.terminals);
+    }
+
+    boolean[] findProductive(IntGrammar grammar) {
+        int symbolCount = grammar.symbols.size();
+        int[] remaining = new int[grammar.productionCount()];
+        boolean[] productive = new boolean[symbolCount];
+        int[] worklist = new int[symbolCount];
+        int size = 0;
+
+        // terminals are productive from the start, so each production waits on its nonterminals only
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            for (int symbol : grammar.rhs[p]) {
+                if (!grammar.symbols.isTerminal(symbol)) {
+                    remaining[p]++;
+                }
+            }
+            if (remaining[p] == 0 && !productive[grammar.lhs[p]]) {
+                productive[grammar.lhs[p]] = true;
+                worklist[size++] = grammar.lhs[p];
+            }
+        }
+
+        int[][] occurrences = occurrenceIndex(grammar);
+        while (size > 0) {
+            int symbol = worklist[--size];
+            for (int i = occurrences[0][symbol]; i < occurrences[0][symbol + 1]; i++) {
+                int p = occurrences[1][i];
+                if (--remaining[p] == 0 && !productive[grammar.lhs[p]]) {
+                    productive[grammar.lhs[p]] = true;
+                    worklist[size++] = grammar.lhs[p];
+                }
+            }
+        }
+        return productive;
+    }
+
+    private static boolean allProductive(IntGrammar grammar, int[] right, boolean[] productive) {
+        for (int symbol : right) {
+            if (!grammar.symbols.isTerminal(symbol) && !productive[symbol]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // step 4: Eliminate inaccessible symbols
+    IntGrammar eliminateInaccessible(IntGrammar grammar) {
+        boolean[] accessible = findAccessible(grammar);
+
+        ProductionSet out = new ProductionSet();
+        boolean[] usedTerminal = new boolean[grammar.symbols.size()];
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            if (accessible[grammar.lhs[p]]) {
+                out.add(grammar.lhs[p], grammar.rhs[p]);
+                for (int symbol : grammar.rhs[p]) {
+                    if (grammar.symbols.isTerminal(symbol)) {
+                        usedTerminal[symbol] = true;
+                    }
+                }
+            }
+        }
+
+        return out.toGrammar(grammar.symbols, grammar.start, filter(grammar.nonTerminals, accessible),
+                filter(grammar.terminals, usedTerminal));
+    }
+
+    boolean[] findAccessible(IntGrammar grammar) {
+        int[][] byLeft = grammar.productionsByLeft();
+        int[] from = byLeft[0];
+        int[] order = byLeft[1];
+        boolean[] accessible = new boolean[grammar.symbols.size()];
+        int[] worklist = new int[grammar.symbols.size()];
+        int size = 0;
+
+        accessible[grammar.start] = true;
+        worklist[size++] = grammar.start;
+        while (size > 0) {
+            int symbol = worklist[--size];
+            for (int i = from[symbol]; i < from[symbol + 1]; i++) {
+                for (int next : grammar.rhs[order[i]]) {
+                    if (!grammar.symbols.isTerminal(next) && !accessible[next]) {
+                        accessible[next] = true;
+                        worklist[size++] = next;
+                    }
+                }
+            }
+        }
+        return accessible;
+    }
+
+    //step 5: Convert to CNF
+    IntGrammar convertToChomsky(IntGrammar grammar) {
+        SymbolTable symbols = grammar.symbols;
+        ProductionSet out = new ProductionSet();
+        List<Integer> newNonTerminals = new ArrayList<>();
+        for (int nt : grammar.nonTerminals) {
+            newNonTerminals.add(nt);
+        }
+
+        // create Xi -> terminal for each terminal
+        int[] xCounter = {0};
+        Map<Integer, Integer> terminalToX = new HashMap<>();
+        for (int terminal : grammar.terminals) {
+            int x = symbols.fresh("X", xCounter);
+            terminalToX.put(terminal, x);
+            newNonTerminals.add(x);
+            out.add(x, new int[]{terminal});
+        }
+
+        // Y nonterminals are shared by every rule with the same remainder: a remainder is identified
+        // by its first symbol and the Y standing for the rest, so building one is O(1) per symbol
+        int[] yCounter = {0};
+        Map<Long, Integer> pairToY = new HashMap<>();
+
+        for (int p = 0; p < grammar.productionCount(); p++) {
+            int left = grammar.lhs[p];
+            int[] right = grammar.rhs[p];
+
+            if (right.length == 1 || (right.length == 2 && !symbols.isTerminal(right[0]) && !symbols.isTerminal(right[1]))) {
+                out.add(left, right);
+                continue;
+            }
+
+            int[] replaced = new int[right.length];
+            for (int i = 0; i < right.length; i++) {
+                replaced[i] = symbols.isTerminal(right[i]) ? terminalToX.get(right[i]) : right[i];
+            }
+            if (replaced.length == 2) {
+                out.add(left, replaced);
+                continue;
+            }
+
+            int rest = replaced[replaced.length - 1];
+            for (int i = replaced.length - 2; i >= 1; i--) {
+                long key = ((long) replaced[i] << 32) | (rest & 0xffffffffL);
+                Integer y = pairToY.get(key);
+                if (y == null) {
+                    y = symbols.fresh("Y", yCounter);
+                    pairToY.put(key, y);
+                    newNonTerminals.add(y);
+                    out.add(y, new int[]{replaced[i], rest});
+                }
+                rest = y;
+            }
+            out.add(left, new int[]{replaced[0], rest});
+        }
+
+        return out.toGrammar(symbols, grammar.start, newNonTerminals.stream().mapToInt(Integer::intValue).toArray(),
+                grammar.terminals);
+    }
+
+    // occurrences of each symbol in right-hand sides, with multiplicity, in CSR form
+    private static int[][] occurrenceIndex(IntGrammar grammar) {
+        int symbolCount = grammar.symbols.size();
+        int[] from = new int[symbolCount + 1];
+        for (int[] right : grammar.rhs) {
+            for (int symbol : right) {
+                from[symbol + 1]++;
+            }
+        }
+        for (int s = 0; s < symbolCount; s++) {
+            from[s + 1] += from[s];
+        }
+        int[] productions = new int[from[symbolCount]];
+        int[] fill = Arrays.copyOf(from, symbolCount);
+        for (int p = 0; p < grammar.rhs.length; p++) {
+            for (int symbol : grammar.rhs[p]) {
+                productions[fill[symbol]++] = p;
+            }
+        }
+        return new int[][]{from, productions};
+    }
+
+    private static int[] filter(int[] symbols, boolean[] keep) {
+        return Arrays.stream(symbols).filter(s -> keep[s]).toArray();
+    }
+
+    // ordered set of productions without duplicates
+    static final class ProductionSet {
+        private final Set<Production> seen = new HashSet<>();
+        private final List<Production> productions = new ArrayList<>();
+
+        boolean add(int left, int[] right) {
+            Production production = new Production(left, right);
+            if (seen.add(production)) {
+                productions.add(production);
+                return true;
+            }
+            return false;
+        }
+
+        int size() {
+            return productions.size();
+        }
+
+        IntGrammar toGrammar(SymbolTable symbols, int start, int[] nonTerminals, int[] terminals) {
+            int[] lhs = new int[productions.size()];
+            int[][] rhs = new int[productions.size()][];
+            for (int i = 0; i < productions.size(); i++) {
+                lhs[i] = productions.get(i).left;
+                rhs[i] = productions.get(i).right;
+            }
+            return new IntGrammar(symbols, start, nonTerminals, terminals, lhs, rhs);
+        }
+    }
+
+    private static final class Production {
+        final int left;
+        final int[] right;
+        final int hash;
+
+        Production(int left, int[] right) {
+            this.left = left;
+            this.right = right;
+            this.hash = 31 * left + Arrays.hashCode(right);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Production)) {
+                return false;
+            }
+            Production other = (Production) o;
+            return left == other.left && Arrays.equals(right, other.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
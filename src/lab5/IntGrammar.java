@@ -0,0 +1,128 @@
+package lab5;
+
+import java.util.*;
+
+// Grammar with interned symbols: productions are (lhs, int[] rhs) pairs, an empty rhs is ε.
+// symbols may be longer than one character, right-hand sides are split by longest match
+class IntGrammar {
+    final SymbolTable symbols;
+    final int start;
+    final int[] nonTerminals;
+    final int[] terminals;
+    final int[] lhs;
+    final int[][] rhs;
+
+    IntGrammar(SymbolTable symbols, int start, int[] nonTerminals, int[] terminals, int[] lhs, int[][] rhs) {
+        this.symbols = symbols;
+        this.start = start;
+        this.nonTerminals = nonTerminals;
+        this.terminals = terminals;
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    static IntGrammar fromGrammar(Grammar grammar) {
+        SymbolTable symbols = new SymbolTable();
+        int[] terminals = new int[grammar.getTerminals().length];
+        for (int i = 0; i < terminals.length; i++) {
+            terminals[i] = symbols.intern(grammar.getTerminals()[i], true);
+        }
+        int[] nonTerminals = new int[grammar.getNonTerminals().length];
+        for (int i = 0; i < nonTerminals.length; i++) {
+            nonTerminals[i] = symbols.intern(grammar.getNonTerminals()[i], false);
+        }
+        int start = symbols.intern(grammar.getStartSymbol(), false);
+
+        // distinct symbol lengths, longest first, so "Y12" is not read as "Y1" followed by '2'
+        TreeSet<Integer> lengthSet = new TreeSet<>(Comparator.reverseOrder());
+        for (String symbol : grammar.getNonTerminals()) {
+            lengthSet.add(symbol.length());
+        }
+        for (String symbol : grammar.getTerminals()) {
+            lengthSet.add(symbol.length());
+        }
+        lengthSet.remove(0);
+        int[] lengths = lengthSet.stream().mapToInt(Integer::intValue).toArray();
+
+        String[] rules = grammar.getRules();
+        int[] lhs = new int[rules.length];
+        int[][] rhs = new int[rules.length][];
+        for (int p = 0; p < rules.length; p++) {
+            String[] parts = rules[p].split("->");
+            lhs[p] = symbols.intern(parts[0], false);
+            String right = parts.length > 1 ? parts[1] : "";
+            rhs[p] = right.equals("ε") ? new int[0] : split(right, lengths, symbols);
+        }
+
+        return new IntGrammar(symbols, start, nonTerminals, terminals, lhs, rhs);
+    }
+
+    // undeclared characters become nonterminals without rules, which the original converter
+    // also treats as nonproductive
+    private static int[] split(String right, int[] lengths, SymbolTable symbols) {
+        int[] result = new int[right.length()];
+        int count = 0;
+        int i = 0;
+        while (i < right.length()) {
+            Integer id = null;
+            int matched = 1;
+            for (int length : lengths) {
+                if (i + length <= right.length() && (id = symbols.lookup(right.substring(i, i + length))) != null) {
+                    matched = length;
+                    break;
+                }
+            }
+            if (id == null) {
+                id = symbols.intern(right.substring(i, i + 1), false);
+            }
+            result[count++] = id;
+            i += matched;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    Grammar toGrammar() {
+        String[] rules = new String[lhs.length];
+        for (int p = 0; p < lhs.length; p++) {
+            StringBuilder rule = new StringBuilder(symbols.name(lhs[p])).append("->");
+            if (rhs[p].length == 0) {
+                rule.append("ε");
+            }
+            for (int symbol : rhs[p]) {
+                rule.append(symbols.name(symbol));
+            }
+            rules[p] = rule.toString();
+        }
+
+        return new Grammar(names(nonTerminals), names(terminals), rules, symbols.name(start));
+    }
+
+    int productionCount() {
+        return lhs.length;
+    }
+
+    // productions grouped by left-hand side in CSR form: productions of A are order[from[A] .. from[A + 1])
+    int[][] productionsByLeft() {
+        int[] from = new int[symbols.size() + 1];
+        for (int left : lhs) {
+            from[left + 1]++;
+        }
+        for (int s = 0; s < symbols.size(); s++) {
+            from[s + 1] += from[s];
+        }
+        int[] order = new int[lhs.length];
+        int[] fill = Arrays.copyOf(from, symbols.size());
+        for (int p = 0; p < lhs.length; p++) {
+            order[fill[lhs[p]]++] = p;
+        }
+        return new int[][]{from, order};
+    }
+
+    private String[] names(int[] ids) {
+        String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = symbols.name(ids[i]);
+        }
+        return result;
+    }
+}
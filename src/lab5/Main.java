@@ -66,6 +66,9 @@ public class Main {
 
         System.out.println("\nFinal CNF Grammar:");
         System.out.println(cnfGrammar);
+
+        System.out.println("\nCNF Grammar (interned converter):");
+        System.out.println(new IntCNFConverter().convertToCNF(grammar));
     }
 
     public static void testCustomGrammar(Scanner scanner) {
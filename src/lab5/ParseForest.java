@@ -0,0 +1,180 @@
+package lab5;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// shared packed parse forest built by EarleyParser.parse. symbol nodes (A, i, j) say A derives input[i, j),
+// intermediate nodes stand for a rule prefix, and every packed family is one way to split a node into
+// at most two children. ambiguous inputs share subtrees, so the forest stays polynomial in the input
+class ParseForest {
+    static final int NONE = -1;
+
+    private final String[] symbolNames;
+    private final int symbolCount;      // labels below this are grammar symbols, the rest intermediate nodes
+    private final int root;
+
+    private final int[] label;
+    private final int[] start;
+    private final int[] end;
+    private final int[] firstFamily;
+    private final int nodeCount;
+
+    private final int[] familyLeft;     // NONE when the family has a single child or is ε
+    private final int[] familyRight;    // NONE for an ε family
+    private final int[] nextFamily;
+    private final int familyCount;
+
+    ParseForest(String[] symbolNames, int symbolCount, int root,
+                int[] label, int[] start, int[] end, int[] firstFamily, int nodeCount,
+                int[] familyLeft, int[] familyRight, int[] nextFamily, int familyCount) {
+        this.symbolNames = symbolNames;
+        this.symbolCount = symbolCount;
+        this.root = root;
+        this.label = Arrays.copyOf(label, nodeCount);
+        this.start = Arrays.copyOf(start, nodeCount);
+        this.end = Arrays.copyOf(end, nodeCount);
+        this.firstFamily = Arrays.copyOf(firstFamily, nodeCount);
+        this.nodeCount = nodeCount;
+        this.familyLeft = Arrays.copyOf(familyLeft, familyCount);
+        this.familyRight = Arrays.copyOf(familyRight, familyCount);
+        this.nextFamily = Arrays.copyOf(nextFamily, familyCount);
+        this.familyCount = familyCount;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    int getFamilyCount() {
+        return familyCount;
+    }
+
+    // number of distinct derivations, or null if a cycle (e.g. A->A or ε-loops) makes it infinite
+    BigInteger countTrees() {
+        BigInteger[] counts = new BigInteger[nodeCount];
+        byte[] state = new byte[nodeCount];     // 0 unvisited, 1 on the current path, 2 done
+        return count(root, counts, state);
+    }
+
+    private BigInteger count(int node, BigInteger[] counts, byte[] state) {
+        if (state[node] == 2) {
+            return counts[node];
+        }
+        if (state[node] == 1) {
+            return null;
+        }
+        if (firstFamily[node] == NONE) {
+            state[node] = 2;
+            counts[node] = BigInteger.ONE;
+            return BigInteger.ONE;
+        }
+
+        state[node] = 1;
+        BigInteger total = BigInteger.ZERO;
+        for (int f = firstFamily[node]; f != NONE; f = nextFamily[f]) {
+            BigInteger product = BigInteger.ONE;
+            for (int child : new int[]{familyLeft[f], familyRight[f]}) {
+                if (child == NONE) {
+                    continue;
+                }
+                BigInteger childCount = count(child, counts, state);
+                if (childCount == null) {
+                    return null;
+                }
+                product = product.multiply(childCount);
+            }
+            total = total.add(product);
+        }
+        state[node] = 2;
+        counts[node] = total;
+        return total;
+    }
+
+    // one derivation in the bracket notation of CYKParser.parseTree, e.g. S(A(a) B(b)), ε as C(ε)
+    String toTree() {
+        // a node is grounded once one of its families has only grounded children, the family that
+        // grounded it first gives a finite tree even when the forest has cycles
+        int[] chosen = new int[nodeCount];
+        Arrays.fill(chosen, NONE);
+        boolean[] grounded = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            grounded[node] = firstFamily[node] == NONE;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int node = 0; node < nodeCount; node++) {
+                if (grounded[node]) {
+                    continue;
+                }
+                for (int f = firstFamily[node]; f != NONE; f = nextFamily[f]) {
+                    if ((familyLeft[f] == NONE || grounded[familyLeft[f]])
+                            && (familyRight[f] == NONE || grounded[familyRight[f]])) {
+                        grounded[node] = true;
+                        chosen[node] = f;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        StringBuilder tree = new StringBuilder();
+        appendTree(root, chosen, tree);
+        return tree.toString();
+    }
+
+    private void appendTree(int node, int[] chosen, StringBuilder tree) {
+        boolean symbol = label[node] < symbolCount;
+        if (symbol && firstFamily[node] == NONE) {
+            tree.append(symbolNames[label[node]]);     // terminal leaf
+            return;
+        }
+        if (symbol) {
+            tree.append(symbolNames[label[node]]).append('(');
+        }
+
+        int family = chosen[node];
+        if (familyRight[family] == NONE) {
+            tree.append('ε');
+        } else {
+            if (familyLeft[family] != NONE) {
+                appendTree(familyLeft[family], chosen, tree);
+                tree.append(' ');
+            }
+            appendTree(familyRight[family], chosen, tree);
+        }
+
+        if (symbol) {
+            tree.append(')');
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int node = 0; node < nodeCount; node++) {
+            sb.append(node).append(": ").append(describe(node)).append(" ->");
+            for (int f = firstFamily[node]; f != NONE; f = nextFamily[f]) {
+                sb.append(" {");
+                if (familyRight[f] == NONE) {
+                    sb.append('ε');
+                }
+                if (familyLeft[f] != NONE) {
+                    sb.append(familyLeft[f]).append(", ");
+                }
+                if (familyRight[f] != NONE) {
+                    sb.append(familyRight[f]);
+                }
+                sb.append('}');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private String describe(int node) {
+        String name = label[node] < symbolCount ? symbolNames[label[node]] : "#" + (label[node] - symbolCount);
+        return "(" + name + ", " + start[node] + ", " + end[node] + ")";
+    }
+}
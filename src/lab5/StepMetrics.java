@@ -0,0 +1,85 @@
+package lab5;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// wall time, bytes allocated by the converting thread, and grammar size before/after one conversion step
+class StepMetrics {
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final int step;
+    private final String name;
+    private final long wallNanos;
+    private final long allocatedBytes;
+    private final int rulesBefore;
+    private final int rulesAfter;
+    private final int nonTerminalsBefore;
+    private final int nonTerminalsAfter;
+
+    StepMetrics(int step, String name, long wallNanos, long allocatedBytes, Grammar input, Grammar output) {
+        this.step = step;
+        this.name = name;
+        this.wallNanos = wallNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.rulesBefore = input.getRules().length;
+        this.rulesAfter = output.getRules().length;
+        this.nonTerminalsBefore = input.getNonTerminals().length;
+        this.nonTerminalsAfter = output.getNonTerminals().length;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    // -1 when the JVM does not support per-thread allocation accounting
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public int getRulesBefore() {
+        return rulesBefore;
+    }
+
+    public int getRulesAfter() {
+        return rulesAfter;
+    }
+
+    public int getNonTerminalsBefore() {
+        return nonTerminalsBefore;
+    }
+
+    public int getNonTerminalsAfter() {
+        return nonTerminalsAfter;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Step %d: %-40s %10.3f ms %12s  rules %d -> %d, nonterminals %d -> %d",
+                step, name, wallNanos / 1e6, allocatedBytes < 0 ? "n/a" : allocatedBytes + " B",
+                rulesBefore, rulesAfter, nonTerminalsBefore, nonTerminalsAfter);
+    }
+
+    // bytes allocated so far by the current thread, or -1 if unsupported
+    static long currentThreadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package lab5;
+
+import java.util.*;
+
+// interns grammar symbols to dense ints, shared by every step of the interned CNF pipeline
+class SymbolTable {
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final BitSet terminals = new BitSet();
+
+    int intern(String name, boolean terminal) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.size();
+        names.add(name);
+        ids.put(name, newId);
+        if (terminal) {
+            terminals.set(newId);
+        }
+        return newId;
+    }
+
+    // a new nonterminal named prefix + n, with n counting up from `counter[0] + 1` past any taken names
+    int fresh(String prefix, int[] counter) {
+        String name;
+        do {
+            name = prefix + (++counter[0]);
+        } while (ids.containsKey(name));
+        return intern(name, false);
+    }
+
+    Integer lookup(String name) {
+        return ids.get(name);
+    }
+
+    String name(int id) {
+        return names.get(id);
+    }
+
+    boolean isTerminal(int id) {
+        return terminals.get(id);
+    }
+
+    int size() {
+        return names.size();
+    }
+}
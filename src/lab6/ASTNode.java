@@ -7,21 +7,48 @@ public class ASTNode {
     private NodeType type;
     private String value;
     private List<ASTNode> children;
+    private double number;          // parsed literal for NUMBER nodes
+    private TokenType operator;     // function or operator for FUNCTION and OPERATION nodes
 
     public ASTNode(NodeType type, String value) {
         this.type = type;
         this.value = value;
         this.children = new ArrayList<>();
+        if (type == NodeType.NUMBER) {
+            this.number = Double.parseDouble(value);
+        } else {
+            this.operator = TokenType.valueOf(value);
+        }
     }
 
     public void addChild(ASTNode child) {
         children.add(child);
     }
 
+    public NodeType getType() {
+        return type;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public List<ASTNode> getChildren() {
+        return children;
+    }
+
+    public double getNumber() {
+        return number;
+    }
+
+    public TokenType getOperator() {
+        return operator;
+    }
+
     public void print(String prefix, boolean isTail) {
         System.out.println(prefix + (isTail ? "└── " : "├── ") + type.name() + "(" + value + ")");
         for (int i = 0; i < children.size(); i++) {
             children.get(i).print(prefix + (isTail ? "    " : "│   "), i == children.size() - 1);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package lab6;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// evaluates a file of newline-separated expressions: the input is memory-mapped in line-aligned chunks,
+// chunks are lexed, parsed and evaluated in parallel, and results are written in input order
+public class BatchEvaluator {
+    private static final long CHUNK_SIZE = 4L << 20;
+    private static final int SCAN_WINDOW = 64 * 1024;
+    private static final int WRITE_BUFFER = 256 * 1024;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 4;
+    private static final int EXPRESSION_CACHE_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    public BatchEvaluator(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BatchEvaluator <input file> <output file> [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        BatchEvaluator evaluator = new BatchEvaluator(threads);
+        long start = System.nanoTime();
+        long lines;
+        try {
+            lines = evaluator.run(Path.of(args[0]), Path.of(args[1]));
+        } finally {
+            evaluator.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Evaluated %,d lines in %.2f s (%,.0f lines/s) on %d threads%n",
+                lines, seconds, lines / seconds, threads);
+    }
+
+    // returns the number of lines evaluated, each input line produces exactly one output line
+    public long run(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Long> bounds = chunkBoundaries(in);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            int maxInFlight = pool.getParallelism() * CHUNKS_IN_FLIGHT_PER_THREAD;
+            long lines = 0;
+
+            // chunks finish out of order, joining them in submission order keeps the output ordered
+            for (int i = 0; i + 1 < bounds.size() || !inFlight.isEmpty(); ) {
+                if (i + 1 < bounds.size() && inFlight.size() < maxInFlight) {
+                    inFlight.addLast(pool.submit(new ChunkTask(in, bounds.get(i), bounds.get(i + 1))));
+                    i++;
+                    continue;
+                }
+                ChunkResult result = inFlight.removeFirst().join();
+                lines += result.lines;
+                write(out, buffer, result.output);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            return lines;
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // chunk i covers [bounds[i], bounds[i + 1]), every boundary sits right after a newline
+    private static List<Long> chunkBoundaries(FileChannel in) throws IOException {
+        long size = in.size();
+        List<Long> bounds = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(SCAN_WINDOW);
+        bounds.add(0L);
+
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            long boundary = size;
+            scan:
+            while (position < size) {
+                window.clear();
+                int read = in.read(window, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break scan;
+                    }
+                }
+                position += read;
+            }
+            bounds.add(boundary);
+            position = boundary + CHUNK_SIZE;
+        }
+        if (bounds.get(bounds.size() - 1) != size) {
+            bounds.add(size);
+        }
+        return bounds;
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private static String evaluateLine(CachedEvaluator evaluator, String line) {
+        try {
+            return Double.toString(evaluator.evaluate(line));
+        } catch (RuntimeException e) {
+            return "Invalid expression";
+        }
+    }
+
+    private static final class ChunkResult {
+        final long lines;
+        final byte[] output;
+
+        ChunkResult(long lines, byte[] output) {
+            this.lines = lines;
+            this.output = output;
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            MappedByteBuffer mapped;
+            try {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not map bytes " + start + ".." + end, e);
+            }
+
+            CachedEvaluator evaluator = new CachedEvaluator(EXPRESSION_CACHE_SIZE);
+            StringBuilder output = new StringBuilder();
+            byte[] line = new byte[256];
+            int length = 0;
+            long lines = 0;
+
+            int size = mapped.limit();
+            for (int i = 0; i <= size; i++) {
+                byte b = i < size ? mapped.get(i) : (byte) '\n';
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                    continue;
+                }
+                // the implicit newline at the end only counts when the chunk ends mid-line
+                if (i == size && length == 0) {
+                    break;
+                }
+                int trimmed = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+                String expression = new String(line, 0, trimmed, StandardCharsets.ISO_8859_1);
+                output.append(evaluateLine(evaluator, expression)).append('\n');
+                lines++;
+                length = 0;
+            }
+
+            return new ChunkResult(lines, output.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
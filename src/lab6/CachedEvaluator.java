@@ -0,0 +1,30 @@
+package lab6;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// evaluates expression text, keeping the constant-folded tree of recently seen expressions
+// so repeated expressions cost one map lookup. not thread-safe, use one instance per thread
+public class CachedEvaluator {
+    private final Evaluator evaluator = new Evaluator();
+    private final ConstantFolder folder = new ConstantFolder();
+    private final Map<String, ASTNode> cache;
+
+    public CachedEvaluator(int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ASTNode> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public double evaluate(String expression) {
+        ASTNode folded = cache.get(expression);
+        if (folded == null) {
+            folded = folder.fold(new Parser(new FastLexer(expression)).parse());
+            cache.put(expression, folded);
+        }
+        return evaluator.evaluate(folded);
+    }
+}
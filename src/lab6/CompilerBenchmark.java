@@ -0,0 +1,63 @@
+package lab6;
+
+import java.util.function.DoubleSupplier;
+
+public class CompilerBenchmark {
+    private static final String[] EXPRESSIONS = {
+            "sin(3 + cos(2 * 5)) - 4/(2 + tan(1))",
+            "1 + 2 * 3 - 4 / 5 + sin(6) * cos(7) - tan(8 / 9)",
+            "((1.5 + 2.25) * (3 - 0.5)) / (cos(1) * cos(1) + sin(1) * sin(1))"
+    };
+    private static final int ITERATIONS = 5_000_000;
+
+    public static void main(String[] args) {
+        Evaluator evaluator = new Evaluator();
+        ExpressionCompiler compiler = new ExpressionCompiler(1024);
+
+        for (String expression : EXPRESSIONS) {
+            ASTNode ast = new Parser(new FastLexer(expression)).parse();
+
+            long compileStart = System.nanoTime();
+            DoubleSupplier compiled = compiler.compile(expression);
+            long compileTime = System.nanoTime() - compileStart;
+
+            if (Double.compare(compiled.getAsDouble(), evaluator.evaluate(ast)) != 0) {
+                throw new IllegalStateException("Compiled result differs for " + expression);
+            }
+
+            System.out.println("\n" + expression);
+            System.out.printf("Compiled in %.2f ms, value %s%n", compileTime / 1e6, compiled.getAsDouble());
+            for (int round = 0; round < 3; round++) {
+                double interpreted = interpreterRate(evaluator, ast);
+                double bytecode = compiledRate(compiled);
+                System.out.printf("Round %d: interpreter %.1f M evals/s, compiled %.1f M evals/s%n",
+                        round + 1, interpreted, bytecode);
+            }
+        }
+    }
+
+    private static double interpreterRate(Evaluator evaluator, ASTNode ast) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += evaluator.evaluate(ast);
+        }
+        return report(sum, System.nanoTime() - start);
+    }
+
+    private static double compiledRate(DoubleSupplier compiled) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += compiled.getAsDouble();
+        }
+        return report(sum, System.nanoTime() - start);
+    }
+
+    private static double report(double sum, long elapsed) {
+        if (Double.isNaN(sum)) {
+            System.out.println("NaN");
+        }
+        return ITERATIONS / (elapsed / 1e3);
+    }
+}
@@ -0,0 +1,64 @@
+package lab6;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConstantFolder {
+
+    // returns a tree where every subtree made only of numeric literals is replaced by a single NUMBER node,
+    // the input tree is left untouched. like Evaluator it walks with explicit stacks, so tree depth is
+    // bounded by memory rather than by the thread stack
+    public ASTNode fold(ASTNode root) {
+        List<ASTNode> pending = new ArrayList<>();
+        List<Boolean> expanded = new ArrayList<>();     // children already pushed, fold the node when popped again
+        List<ASTNode> folded = new ArrayList<>();
+        pending.add(root);
+        expanded.add(false);
+
+        while (!pending.isEmpty()) {
+            int top = pending.size() - 1;
+            ASTNode node = pending.remove(top);
+            boolean childrenDone = expanded.remove(top);
+            if (node.getType() == NodeType.NUMBER) {
+                folded.add(node);
+                continue;
+            }
+
+            List<ASTNode> children = node.getChildren();
+            if (!childrenDone) {
+                pending.add(node);
+                expanded.add(true);
+                // pushed in reverse so the first child is folded first
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.add(children.get(i));
+                    expanded.add(false);
+                }
+                continue;
+            }
+
+            // the folded children are the last children.size() results, in order
+            List<ASTNode> operands = folded.subList(folded.size() - children.size(), folded.size());
+            ASTNode result = new ASTNode(node.getType(), node.getValue());
+            boolean allLiterals = true;
+            for (ASTNode operand : operands) {
+                allLiterals &= operand.getType() == NodeType.NUMBER;
+                result.addChild(operand);
+            }
+            if (allLiterals) {
+                double value;
+                if (node.getType() == NodeType.FUNCTION) {
+                    value = Evaluator.applyFunction(node.getOperator(), operands.get(0).getNumber());
+                } else if (operands.size() == 1) {
+                    value = -operands.get(0).getNumber();
+                } else {
+                    value = Evaluator.applyOperation(node.getOperator(), operands.get(0).getNumber(), operands.get(1).getNumber());
+                }
+                result = new ASTNode(NodeType.NUMBER, Double.toString(value));
+            }
+            operands.clear();
+            folded.add(result);
+        }
+
+        return folded.get(0);
+    }
+}
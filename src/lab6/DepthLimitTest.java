@@ -0,0 +1,56 @@
+package lab6;
+
+// regression check for the nesting limit, run with `java lab6.DepthLimitTest`: long flat chains
+// like 1+1+...+1 must evaluate through every walker, only real nesting past Parser.MAX_DEPTH is rejected
+public class DepthLimitTest {
+    private static final int TERMS = 100_000;
+
+    public static void main(String[] args) {
+        String sum = "1" + "+1".repeat(TERMS - 1);
+        String product = "2" + "*1".repeat(TERMS - 1);
+        checkChain(sum, TERMS);
+        checkChain(product, 2);
+        checkChain("10" + "-1".repeat(TERMS - 1), 10 - (TERMS - 1));
+
+        // short enough to fit in one method, so this goes through the generated bytecode
+        String compiled = "1" + "+1".repeat(4999);
+        check(new ExpressionCompiler(16).compile(compiled).getAsDouble(), 5000, "ExpressionCompiler");
+
+        String deepParens = "(".repeat(Parser.MAX_DEPTH + 1) + "1" + ")".repeat(Parser.MAX_DEPTH + 1);
+        String deepMinus = "-".repeat(Parser.MAX_DEPTH + 1) + "1";
+        String deepPower = "1" + "^1".repeat(Parser.MAX_DEPTH + 1);
+        for (String nested : new String[]{deepParens, deepMinus, deepPower}) {
+            expectRejected(nested, () -> new Parser(new FastLexer(nested)).parse());
+            expectRejected(nested, () -> new FlatParser().parse(nested, new FlatAst()));
+        }
+
+        System.out.println("DepthLimitTest passed");
+    }
+
+    private static void checkChain(String chain, double expected) {
+        ASTNode ast = new Parser(new FastLexer(chain)).parse();
+        check(new Evaluator().evaluate(ast), expected, "Evaluator");
+        check(new ConstantFolder().fold(ast).getNumber(), expected, "ConstantFolder");
+        check(new ExpressionCompiler(16).compile(ast).getAsDouble(), expected, "ExpressionCompiler");
+        check(new CachedEvaluator(16).evaluate(chain), expected, "CachedEvaluator");
+
+        FlatAst flat = new FlatParser().parse(chain, new FlatAst());
+        check(flat.evaluate(), expected, "FlatAst");
+        check(new Evaluator().evaluate(flat.toASTNode()), expected, "FlatAst.toASTNode");
+    }
+
+    private static void expectRejected(String input, Runnable parse) {
+        try {
+            parse.run();
+        } catch (RuntimeException e) {
+            return;
+        }
+        throw new AssertionError("Expression of " + input.length() + " characters nested too deep was accepted");
+    }
+
+    private static void check(double actual, double expected, String walker) {
+        if (actual != expected) {
+            throw new AssertionError(walker + " returned " + actual + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package lab6;
+
+import java.util.Arrays;
+import java.util.List;
+
+// literals are parsed and operators resolved when the ASTNode is built, so evaluation only moves doubles.
+// the walk keeps explicit stacks instead of recursing: a flat chain like 1+1+...+1 is a tree as deep as
+// it is long, and the parser only limits nesting, not length
+public class Evaluator {
+
+    public double evaluate(ASTNode root) {
+        ASTNode[] nodes = new ASTNode[16];
+        boolean[] expanded = new boolean[16];   // children already pushed, apply the node when popped again
+        double[] values = new double[16];
+        int top = 0;
+        int count = 0;
+        nodes[top++] = root;
+
+        while (top > 0) {
+            ASTNode node = nodes[--top];
+            if (node.getType() == NodeType.NUMBER) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = node.getNumber();
+                continue;
+            }
+
+            List<ASTNode> children = node.getChildren();
+            if (!expanded[top]) {
+                if (top + children.size() + 1 > nodes.length) {
+                    nodes = Arrays.copyOf(nodes, (top + children.size() + 1) * 2);
+                    expanded = Arrays.copyOf(expanded, nodes.length);
+                }
+                expanded[top++] = true;
+                // pushed in reverse so the first child is evaluated first
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    nodes[top] = children.get(i);
+                    expanded[top++] = false;
+                }
+                continue;
+            }
+
+            switch (node.getType()) {
+                case FUNCTION:
+                    values[count - 1] = applyFunction(node.getOperator(), values[count - 1]);
+                    break;
+                case OPERATION:
+                    if (children.size() == 1) {
+                        values[count - 1] = -values[count - 1];
+                    } else {
+                        double right = values[--count];
+                        values[count - 1] = applyOperation(node.getOperator(), values[count - 1], right);
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("Unknown node type: " + node.getType());
+            }
+        }
+
+        return values[0];
+    }
+
+    static double applyFunction(TokenType function, double argument) {
+        switch (function) {
+            case SIN:
+                return Math.sin(argument);
+            case COS:
+                return Math.cos(argument);
+            case TAN:
+                return Math.tan(argument);
+            default:
+                throw new RuntimeException("Unknown function: " + function);
+        }
+    }
+
+    static double applyOperation(TokenType operation, double left, double right) {
+        switch (operation) {
+            case PLUS:
+                return left + right;
+            case MINUS:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            case POWER:
+                return Math.pow(left, right);
+            default:
+                throw new RuntimeException("Unknown operation: " + operation);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package lab6;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+// compiles an ASTNode into a hidden class implementing DoubleSupplier, so HotSpot sees straight-line
+// bytecode instead of a tree walk. compiled suppliers are cached by expression text
+public class ExpressionCompiler {
+    private static final int MAX_CODE_LENGTH = 65535;
+    private static final int MAX_CONSTANT_POOL = 65535;
+    private static final String CLASS_NAME = "lab6/CompiledExpression";
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final Map<String, DoubleSupplier> cache;
+
+    public ExpressionCompiler(int maxCachedExpressions) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DoubleSupplier> eldest) {
+                return size() > maxCachedExpressions;
+            }
+        };
+    }
+
+    public DoubleSupplier compile(String expression) {
+        synchronized (cache) {
+            DoubleSupplier compiled = cache.get(expression);
+            if (compiled != null) {
+                return compiled;
+            }
+        }
+
+        DoubleSupplier compiled = compile(new Parser(new FastLexer(expression)).parse());
+        synchronized (cache) {
+            cache.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    public DoubleSupplier compile(ASTNode ast) {
+        byte[] classFile = generate(ast);
+        if (classFile == null) {
+            // too large for a single method, keep interpreting
+            Evaluator evaluator = new Evaluator();
+            return () -> evaluator.evaluate(ast);
+        }
+
+        try {
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(classFile, true);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class));
+            return (DoubleSupplier) constructor.invoke();
+        } catch (Throwable e) {
+            throw new RuntimeException("Could not load compiled expression", e);
+        }
+    }
+
+    // returns the class file bytes, or null when the expression does not fit in one method
+    static byte[] generate(ASTNode ast) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int supplier = pool.classRef("java/util/function/DoubleSupplier");
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int initName = pool.utf8("<init>");
+        int initType = pool.utf8("()V");
+        int getName = pool.utf8("getAsDouble");
+        int getType = pool.utf8("()D");
+        int codeName = pool.utf8("Code");
+
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        int maxStack = emit(ast, code, pool);
+        code.write(0xaf);   // dreturn
+
+        if (code.size() > MAX_CODE_LENGTH || pool.size() > MAX_CONSTANT_POOL) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61);         // Java 17, no branches so no stack map frames are needed
+            pool.writeTo(out);
+            out.writeShort(0x0001 | 0x0010 | 0x0020);   // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(supplier);
+            out.writeShort(0);          // fields
+            out.writeShort(2);          // methods
+
+            // public <init>() { super(); }
+            byte[] initCode = {0x2a, (byte) 0xb7, (byte) (objectInit >> 8), (byte) objectInit, (byte) 0xb1};
+            writeMethod(out, initName, initType, codeName, 1, initCode);
+
+            // public double getAsDouble() { return <expression>; }
+            writeMethod(out, getName, getType, codeName, maxStack, code.toByteArray());
+
+            out.writeShort(0);          // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // emits bytecode leaving the root value on the stack, returns the stack depth needed (in slots).
+    // post-order walk with explicit stacks, so a long flat chain does not recurse once per operator
+    private static int emit(ASTNode root, ByteArrayOutputStream code, ConstantPool pool) {
+        List<ASTNode> pending = new ArrayList<>();
+        List<Boolean> expanded = new ArrayList<>();     // children already emitted when popped again
+        int[] depths = new int[16];                     // stack depth needed by each finished subtree
+        int count = 0;
+        pending.add(root);
+        expanded.add(false);
+
+        while (!pending.isEmpty()) {
+            int top = pending.size() - 1;
+            ASTNode node = pending.remove(top);
+            boolean childrenDone = expanded.remove(top);
+            List<ASTNode> children = node.getChildren();
+
+            if (node.getType() != NodeType.NUMBER && !childrenDone) {
+                pending.add(node);
+                expanded.add(true);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.add(children.get(i));
+                    expanded.add(false);
+                }
+                continue;
+            }
+
+            int depth;
+            switch (node.getType()) {
+                case NUMBER: {
+                    double value = node.getNumber();
+                    if (Double.doubleToRawLongBits(value) == 0L) {
+                        code.write(0x0e);   // dconst_0
+                    } else if (value == 1.0) {
+                        code.write(0x0f);   // dconst_1
+                    } else {
+                        writeIndexed(code, 0x14, pool.doubleConstant(value));   // ldc2_w
+                    }
+                    depth = 2;
+                    break;
+                }
+                case FUNCTION: {
+                    String name = node.getOperator().name().toLowerCase(Locale.ROOT);   // not sın under a Turkish locale
+                    writeIndexed(code, 0xb8, pool.methodRef("java/lang/Math", name, "(D)D"));   // invokestatic
+                    depth = Math.max(depths[--count], 2);
+                    break;
+                }
+                case OPERATION: {
+                    if (children.size() == 1) {
+                        code.write(0x77);   // dneg
+                        depth = depths[--count];
+                        break;
+                    }
+                    switch (node.getOperator()) {
+                        case PLUS -> code.write(0x63);      // dadd
+                        case MINUS -> code.write(0x67);     // dsub
+                        case MULTIPLY -> code.write(0x6b);  // dmul
+                        case DIVIDE -> code.write(0x6f);    // ddiv
+                        case POWER -> writeIndexed(code, 0xb8, pool.methodRef("java/lang/Math", "pow", "(DD)D"));
+                        default -> throw new RuntimeException("Unknown operation: " + node.getOperator());
+                    }
+                    int right = depths[--count];
+                    int left = depths[--count];
+                    depth = Math.max(left, 2 + right);
+                    break;
+                }
+                default:
+                    throw new RuntimeException("Unknown node type: " + node.getType());
+            }
+            if (count == depths.length) {
+                depths = Arrays.copyOf(depths, count * 2);
+            }
+            depths[count++] = depth;
+        }
+
+        return depths[0];
+    }
+
+    private static void writeIndexed(ByteArrayOutputStream code, int opcode, int index) {
+        code.write(opcode);
+        code.write(index >> 8);
+        code.write(index);
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeName,
+                                    int maxStack, byte[] code) throws IOException {
+        out.writeShort(0x0001);         // public
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(1);              // max locals: this
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);              // exception table
+        out.writeShort(0);              // attributes
+    }
+
+    // deduplicating class file constant pool
+    private static final class ConstantPool {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int next = 1;
+
+        int utf8(String value) {
+            return add("U" + value, 1, out -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return add("C" + internalName, 1, out -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = add("N" + name + ":" + descriptor, 1, out -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            return add("M" + owner + "." + name + descriptor, 1, out -> {
+                out.writeByte(10);
+                out.writeShort(ownerIndex);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            // doubles take two constant pool slots
+            return add("D" + bits, 2, out -> {
+                out.writeByte(6);
+                out.writeLong(bits);
+            });
+        }
+
+        int size() {
+            return next;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(next);
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+
+        private int add(String key, int slots, Entry entry) {
+            Integer existing = indices.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                entry.writeTo(new DataOutputStream(bytes));
+                entries.add(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int index = next;
+            next += slots;
+            indices.put(key, index);
+            return index;
+        }
+
+        private interface Entry {
+            void writeTo(DataOutputStream out) throws IOException;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package lab6;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// single-pass replacement for Lexer, produces the same token stream without regex matching.
+// operators and function names share preallocated tokens, numbers only keep offsets into the input.
+// next() is the allocation-free form for parsers that read the type and offsets directly
+public class FastLexer implements TokenStream {
+    static final Token PLUS = new Token(TokenType.PLUS, "+");
+    static final Token MINUS = new Token(TokenType.MINUS, "-");
+    static final Token MULTIPLY = new Token(TokenType.MULTIPLY, "*");
+    static final Token DIVIDE = new Token(TokenType.DIVIDE, "/");
+    static final Token POWER = new Token(TokenType.POWER, "^");
+    static final Token LPAREN = new Token(TokenType.LPAREN, "(");
+    static final Token RPAREN = new Token(TokenType.RPAREN, ")");
+    static final Token SIN = new Token(TokenType.SIN, "sin");
+    static final Token COS = new Token(TokenType.COS, "cos");
+    static final Token TAN = new Token(TokenType.TAN, "tan");
+    static final Token EOL = new Token(TokenType.EOL, "");
+
+    // shared token by TokenType ordinal, null for NUMBER
+    private static final Token[] SHARED = new Token[TokenType.values().length];
+
+    static {
+        for (Token token : new Token[]{PLUS, MINUS, MULTIPLY, DIVIDE, POWER, LPAREN, RPAREN, SIN, COS, TAN, EOL}) {
+            SHARED[token.getType().ordinal()] = token;
+        }
+    }
+
+    private String input;
+    private int position;
+    private int tokenStart;     // input[tokenStart, tokenEnd) is the text of the last token from next()
+    private int tokenEnd;
+
+    public FastLexer(String input) {
+        this.input = input;
+        this.position = 0;
+    }
+
+    // restarts the lexer on new input so one instance can be reused
+    public void reset(String input) {
+        this.input = input;
+        this.position = 0;
+    }
+
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+
+        while ((token = nextToken()) != EOL) {
+            tokens.add(token);
+        }
+
+        tokens.add(EOL); // End Of Line token
+        return tokens;
+    }
+
+    @Override
+    public Token nextToken() {
+        TokenType type = next();
+        return type == TokenType.NUMBER ? new Token(TokenType.NUMBER, input, tokenStart, tokenEnd) : SHARED[type.ordinal()];
+    }
+
+    // advances to the next token and returns its type, the text is input[tokenStart(), tokenEnd())
+    TokenType next() {
+        int length = input.length();
+
+        while (position < length) {
+            char ch = input.charAt(position);
+
+            switch (ch) {
+                case '+' -> {
+                    return single(TokenType.PLUS);
+                }
+                case '-' -> {
+                    return single(TokenType.MINUS);
+                }
+                case '*' -> {
+                    return single(TokenType.MULTIPLY);
+                }
+                case '/' -> {
+                    return single(TokenType.DIVIDE);
+                }
+                case '^' -> {
+                    return single(TokenType.POWER);
+                }
+                case '(' -> {
+                    return single(TokenType.LPAREN);
+                }
+                case ')' -> {
+                    return single(TokenType.RPAREN);
+                }
+                case 's' -> {
+                    if (input.startsWith("sin", position)) {
+                        return function(TokenType.SIN);
+                    }
+                }
+                case 'c' -> {
+                    if (input.startsWith("cos", position)) {
+                        return function(TokenType.COS);
+                    }
+                }
+                case 't' -> {
+                    if (input.startsWith("tan", position)) {
+                        return function(TokenType.TAN);
+                    }
+                }
+                case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                    scanNumber();
+                    return TokenType.NUMBER;
+                }
+                default -> {
+                    // whitespace and unrecognized characters are skipped, like Lexer does
+                }
+            }
+
+            position++;
+        }
+
+        tokenStart = tokenEnd = length;
+        return TokenType.EOL;
+    }
+
+    String source() {
+        return input;
+    }
+
+    int tokenStart() {
+        return tokenStart;
+    }
+
+    int tokenEnd() {
+        return tokenEnd;
+    }
+
+    private TokenType single(TokenType type) {
+        tokenStart = position++;
+        tokenEnd = position;
+        return type;
+    }
+
+    private TokenType function(TokenType type) {
+        tokenStart = position;
+        position += 3;
+        tokenEnd = position;
+        return type;
+    }
+
+    // \d+(\.\d+)?
+    private void scanNumber() {
+        int start = position;
+        int length = input.length();
+
+        while (position < length && isDigit(input.charAt(position))) {
+            position++;
+        }
+        if (position + 1 < length && input.charAt(position) == '.' && isDigit(input.charAt(position + 1))) {
+            position += 2;
+            while (position < length && isDigit(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        tokenStart = start;
+        tokenEnd = position;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+}
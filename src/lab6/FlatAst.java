@@ -0,0 +1,132 @@
+package lab6;
+
+import java.util.Arrays;
+
+// structure-of-arrays expression tree, meant to be reused across parses via reset().
+// kind holds the TokenType ordinal of the node (NUMBER, an operator or a function). for NUMBER nodes
+// left/right hold the literal's offsets in the source, for FUNCTION nodes and unary minus left is the operand.
+// children are always added before their parent, so index order is a post-order and the walks are plain loops
+public class FlatAst {
+    static final int NONE = -1;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    int[] kind;
+    int[] left;
+    int[] right;
+    double[] literal;
+    private double[] values;        // evaluate() scratch, value of every node by index
+    private int size;
+    private int root = NONE;
+    private CharSequence source;
+
+    public FlatAst() {
+        this(64);
+    }
+
+    public FlatAst(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.kind = new int[capacity];
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.literal = new double[capacity];
+        this.values = new double[capacity];
+    }
+
+    public void reset(CharSequence source) {
+        this.source = source;
+        this.size = 0;
+        this.root = NONE;
+    }
+
+    int addNumber(double value, int start, int end) {
+        int node = allocate();
+        kind[node] = TokenType.NUMBER.ordinal();
+        literal[node] = value;
+        left[node] = start;
+        right[node] = end;
+        return node;
+    }
+
+    int addNode(TokenType type, int leftChild, int rightChild) {
+        int node = allocate();
+        kind[node] = type.ordinal();
+        left[node] = leftChild;
+        right[node] = rightChild;
+        return node;
+    }
+
+    void setRoot(int root) {
+        this.root = root;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public double evaluate() {
+        int[] kind = this.kind;
+        int[] left = this.left;
+        int[] right = this.right;
+        double[] values = this.values;
+
+        for (int node = 0; node <= root; node++) {
+            TokenType type = TYPES[kind[node]];
+            switch (type) {
+                case NUMBER:
+                    values[node] = literal[node];
+                    break;
+                case SIN:
+                case COS:
+                case TAN:
+                    values[node] = Evaluator.applyFunction(type, values[left[node]]);
+                    break;
+                default:
+                    values[node] = right[node] == NONE
+                            ? -values[left[node]]
+                            : Evaluator.applyOperation(type, values[left[node]], values[right[node]]);
+            }
+        }
+        return values[root];
+    }
+
+    public ASTNode toASTNode() {
+        ASTNode[] built = new ASTNode[root + 1];
+        for (int node = 0; node <= root; node++) {
+            TokenType type = TYPES[kind[node]];
+            switch (type) {
+                case NUMBER:
+                    built[node] = new ASTNode(NodeType.NUMBER, source.subSequence(left[node], right[node]).toString());
+                    break;
+                case SIN:
+                case COS:
+                case TAN:
+                    built[node] = new ASTNode(NodeType.FUNCTION, type.toString());
+                    built[node].addChild(built[left[node]]);
+                    break;
+                default:
+                    built[node] = new ASTNode(NodeType.OPERATION, type.toString());
+                    built[node].addChild(built[left[node]]);
+                    if (right[node] != NONE) {
+                        built[node].addChild(built[right[node]]);
+                    }
+            }
+        }
+        return built[root];
+    }
+
+    private int allocate() {
+        if (size == kind.length) {
+            int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            literal = Arrays.copyOf(literal, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        return size++;
+    }
+}
@@ -0,0 +1,118 @@
+package lab6;
+
+// same precedence-climbing grammar as Parser, but builds the tree into a reusable FlatAst arena instead of ASTNode objects.
+// tokens are read from the lexer as a type plus offsets, so a successful parse allocates no Token
+public class FlatParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final FastLexer lexer = new FastLexer("");
+    private FlatAst ast;
+    private TokenType currentType;
+    private int currentStart;
+    private int currentEnd;
+
+    // parses `input` into `arena`, replacing whatever the arena held before
+    public FlatAst parse(String input, FlatAst arena) {
+        lexer.reset(input);
+        arena.reset(input);
+        this.ast = arena;
+        advance();
+
+        arena.setRoot(parseExpression(0, 0));
+        this.ast = null;
+        return arena;
+    }
+
+    private void advance() {
+        currentType = lexer.next();
+        currentStart = lexer.tokenStart();
+        currentEnd = lexer.tokenEnd();
+    }
+
+    private int parseExpression(int minPrecedence, int depth) {
+        Parser.checkDepth(depth);
+
+        int node = parsePrefix(depth);
+
+        int precedence;
+        while ((precedence = Parser.BINARY_PRECEDENCE[currentType.ordinal()]) >= minPrecedence && precedence > 0) {
+            TokenType op = currentType;
+            advance();
+            int nextMin = Parser.RIGHT_ASSOCIATIVE[op.ordinal()] ? precedence : precedence + 1;
+            node = ast.addNode(op, node, parseExpression(nextMin, depth + 1));
+        }
+
+        return node;
+    }
+
+    private int parsePrefix(int depth) {
+        TokenType type = currentType;
+        int start = currentStart;
+        int end = currentEnd;
+
+        switch (type) {
+            case NUMBER: {
+                advance();
+                return ast.addNumber(parseNumber(lexer.source(), start, end), start, end);
+            }
+            case MINUS: {
+                advance();
+                return ast.addNode(TokenType.MINUS, parseExpression(Parser.UNARY_PRECEDENCE, depth + 1), FlatAst.NONE);
+            }
+            case SIN:
+            case COS:
+            case TAN: {
+                advance();
+                expect(TokenType.LPAREN);
+                int argument = parseExpression(0, depth + 1);
+                expect(TokenType.RPAREN);
+                return ast.addNode(type, argument, FlatAst.NONE);
+            }
+            case LPAREN: {
+                advance();
+                int node = parseExpression(0, depth + 1);
+                expect(TokenType.RPAREN);
+                return node;
+            }
+            default:
+                throw new RuntimeException("Unexpected token: " + new Token(type, lexer.source(), start, end));
+        }
+    }
+
+    private void expect(TokenType type) {
+        if (currentType == type) {
+            advance();
+        } else {
+            throw new RuntimeException("Expected " + type + " but got " + currentType);
+        }
+    }
+
+    // \d+(\.\d+)? read straight from the source. when the digits fit in 53 bits and there are at most
+    // 22 fraction digits, mantissa / 10^scale is a single correctly rounded division
+    private static double parseNumber(String source, int start, int end) {
+        long mantissa = 0;
+        int scale = 0;
+        boolean fraction = false;
+
+        for (int i = start; i < end; i++) {
+            char ch = source.charAt(i);
+            if (ch == '.') {
+                fraction = true;
+                continue;
+            }
+            mantissa = mantissa * 10 + (ch - '0');
+            if (fraction) {
+                scale++;
+            }
+            if (mantissa >= MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+                return Double.parseDouble(source.substring(start, end));
+            }
+        }
+
+        return scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+    }
+}
@@ -1,15 +1,22 @@
 package lab6;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
 //sin(3 + cos(2 * 5)) - 4/(2 + tan(1))
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2) {
+            // batch mode: <input file> <output file> [threads]
+            BatchEvaluator.main(args);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
         System.out.print("Enter operation: ");
         String input = scanner.nextLine();
 
-        Lexer lexer = new Lexer(input);
+        FastLexer lexer = new FastLexer(input);
         List<Token> tokens = lexer.tokenize();
 
         Parser parser = new Parser(tokens);
@@ -17,6 +24,7 @@ public class Main {
         try {
             ASTNode ast = parser.parse();
             ast.print("", true);
+            System.out.println("Result: " + new Evaluator().evaluate(ast));
         } catch (RuntimeException e) {
             System.out.println("Invalid expression");
         }
@@ -1,43 +1,74 @@
 package lab6;
 
 
+import java.util.Iterator;
 import java.util.List;
 
 
 public class Parser {
-    private List<Token> tokens;
-    private int position;
+    static final int MAX_DEPTH = 1000;
+
+    // binding power of each binary operator by TokenType ordinal, 0 for tokens that are not binary operators
+    static final int[] BINARY_PRECEDENCE = new int[TokenType.values().length];
+    static final boolean[] RIGHT_ASSOCIATIVE = new boolean[TokenType.values().length];
+    // prefix minus binds tighter than * and / but looser than ^, so -2^2 is -(2^2)
+    static final int UNARY_PRECEDENCE = 3;
+
+    static {
+        BINARY_PRECEDENCE[TokenType.PLUS.ordinal()] = 1;
+        BINARY_PRECEDENCE[TokenType.MINUS.ordinal()] = 1;
+        BINARY_PRECEDENCE[TokenType.MULTIPLY.ordinal()] = 2;
+        BINARY_PRECEDENCE[TokenType.DIVIDE.ordinal()] = 2;
+        BINARY_PRECEDENCE[TokenType.POWER.ordinal()] = 4;
+        RIGHT_ASSOCIATIVE[TokenType.POWER.ordinal()] = true;
+    }
+
+    private TokenStream tokens;
+    private Token currentToken;
+    private TokenType currentType;
 
     public Parser(List<Token> tokens) {
+        this(fromList(tokens));
+    }
+
+    public Parser(TokenStream tokens) {
         this.tokens = tokens;
-        this.position = 0;
+        advance();
     }
 
 //    public Parser(List<lab6.Token> tokens) {
 //    }
 
 
-    private Token getCurrentToken() {
-        return position < tokens.size() ? tokens.get(position) : new Token(TokenType.EOL, "");
+    private static TokenStream fromList(List<Token> tokens) {
+        Iterator<Token> iterator = tokens.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : new Token(TokenType.EOL, "");
     }
 
     private void advance() {
-        position++;
+        currentToken = tokens.nextToken();
+        currentType = currentToken.getType();
     }
 
     public ASTNode parse() {
-        return parseExpression();
+        return parseExpression(0, 0);
     }
 
-    private ASTNode parseExpression() {
-        ASTNode node = parseTerm();
+    // precedence climbing: parses a prefix expression, then keeps folding in binary operators
+    // that bind at least as tightly as minPrecedence. depth counts recursion only (parentheses, unary
+    // minus, right operands), a left-associative chain is folded in the loop and can be any length
+    private ASTNode parseExpression(int minPrecedence, int depth) {
+        checkDepth(depth);
+
+        ASTNode node = parsePrefix(depth);
 
-        while (getCurrentToken().getType() == TokenType.PLUS ||
-                getCurrentToken().getType() == TokenType.MINUS) {
-            Token op = getCurrentToken();
+        int precedence;
+        while ((precedence = BINARY_PRECEDENCE[currentType.ordinal()]) >= minPrecedence && precedence > 0) {
+            TokenType op = currentType;
             advance();
-            ASTNode right = parseTerm();
-            ASTNode opNode = new ASTNode(NodeType.OPERATION, op.getType().toString());
+            int nextMin = RIGHT_ASSOCIATIVE[op.ordinal()] ? precedence : precedence + 1;
+            ASTNode right = parseExpression(nextMin, depth + 1);
+            ASTNode opNode = new ASTNode(NodeType.OPERATION, op.toString());
             opNode.addChild(node);
             opNode.addChild(right);
             node = opNode;
@@ -46,52 +77,56 @@ public class Parser {
         return node;
     }
 
-    private ASTNode parseTerm() {
-        ASTNode node = parseFactor();
-
-        while (getCurrentToken().getType() == TokenType.MULTIPLY ||
-                getCurrentToken().getType() == TokenType.DIVIDE) {
-            Token op = getCurrentToken();
-            advance();
-            ASTNode right = parseFactor();
-            ASTNode opNode = new ASTNode(NodeType.OPERATION, op.getType().toString());
-            opNode.addChild(node);
-            opNode.addChild(right);
-            node = opNode;
+    private ASTNode parsePrefix(int depth) {
+        Token token = currentToken;
+
+        switch (currentType) {
+            case NUMBER: {
+                advance();
+                return new ASTNode(NodeType.NUMBER, token.getValue());
+            }
+            case MINUS: {
+                // unary minus is an OPERATION(MINUS) node with a single child
+                advance();
+                ASTNode operand = parseExpression(UNARY_PRECEDENCE, depth + 1);
+                ASTNode negation = new ASTNode(NodeType.OPERATION, TokenType.MINUS.toString());
+                negation.addChild(operand);
+                return negation;
+            }
+            case SIN:
+            case COS:
+            case TAN: {
+                advance();
+                expect(TokenType.LPAREN);
+                ASTNode argument = parseExpression(0, depth + 1);
+                expect(TokenType.RPAREN);
+                ASTNode funcNode = new ASTNode(NodeType.FUNCTION, token.getType().toString());
+                funcNode.addChild(argument);
+                return funcNode;
+            }
+            case LPAREN: {
+                advance();
+                ASTNode node = parseExpression(0, depth + 1);
+                expect(TokenType.RPAREN);
+                return node;
+            }
+            default:
+                throw new RuntimeException("Unexpected token: " + token);
         }
-
-        return node;
     }
 
-    private ASTNode parseFactor() {
-        Token token = getCurrentToken();
-
-        if (token.getType() == TokenType.NUMBER) {
-            advance();
-            return new ASTNode(NodeType.NUMBER, token.getValue());
-        } else if (token.getType() == TokenType.SIN || token.getType() == TokenType.COS || token.getType() == TokenType.TAN) {
-            advance();
-            expect(TokenType.LPAREN);
-            ASTNode argument = parseExpression();
-            expect(TokenType.RPAREN);
-            ASTNode funcNode = new ASTNode(NodeType.FUNCTION, token.getType().toString());
-            funcNode.addChild(argument);
-            return funcNode;
-        } else if (token.getType() == TokenType.LPAREN) {
-            advance();
-            ASTNode node = parseExpression();
-            expect(TokenType.RPAREN);
-            return node;
-        } else {
-            throw new RuntimeException("Unexpected token: " + token);
+    // shared by Parser and FlatParser
+    static void checkDepth(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new RuntimeException("Expression nested deeper than " + MAX_DEPTH + " levels");
         }
     }
 
     private void expect(TokenType type) {
-        if (getCurrentToken().getType() == type) {
+        if (currentType == type) {
             advance();
         } else {
-            throw new RuntimeException("Expected " + type + " but got " + getCurrentToken().getType());
+            throw new RuntimeException("Expected " + type + " but got " + currentType);
         }
     }
 }
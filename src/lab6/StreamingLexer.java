@@ -0,0 +1,154 @@
+package lab6;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+// pull-based version of FastLexer that reads its input through a fixed-size ring buffer,
+// so memory stays constant no matter how long the input is
+public class StreamingLexer implements TokenStream {
+    private static final int MIN_BUFFER_SIZE = 4;   // enough lookahead for "sin" and "1.5"
+
+    private final Reader reader;
+    private final char[] ring;
+    private final int mask;
+    private long head;      // total chars consumed
+    private long tail;      // total chars read into the ring
+    private boolean endOfInput;
+
+    private final StringBuilder number = new StringBuilder();
+
+    public StreamingLexer(Reader reader, int bufferSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_BUFFER_SIZE, bufferSize) - 1) << 1;
+        this.reader = reader;
+        this.ring = new char[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public StreamingLexer(Reader reader) {
+        this(reader, 8192);
+    }
+
+    public StreamingLexer(ReadableByteChannel channel, Charset charset, int bufferSize) {
+        this(Channels.newReader(channel, charset.newDecoder(), bufferSize), bufferSize);
+    }
+
+    @Override
+    public Token nextToken() {
+        int ch;
+
+        while ((ch = peek(0)) >= 0) {
+            switch (ch) {
+                case '+' -> {
+                    head++;
+                    return FastLexer.PLUS;
+                }
+                case '-' -> {
+                    head++;
+                    return FastLexer.MINUS;
+                }
+                case '*' -> {
+                    head++;
+                    return FastLexer.MULTIPLY;
+                }
+                case '/' -> {
+                    head++;
+                    return FastLexer.DIVIDE;
+                }
+                case '^' -> {
+                    head++;
+                    return FastLexer.POWER;
+                }
+                case '(' -> {
+                    head++;
+                    return FastLexer.LPAREN;
+                }
+                case ')' -> {
+                    head++;
+                    return FastLexer.RPAREN;
+                }
+                case 's' -> {
+                    if (peek(1) == 'i' && peek(2) == 'n') {
+                        head += 3;
+                        return FastLexer.SIN;
+                    }
+                }
+                case 'c' -> {
+                    if (peek(1) == 'o' && peek(2) == 's') {
+                        head += 3;
+                        return FastLexer.COS;
+                    }
+                }
+                case 't' -> {
+                    if (peek(1) == 'a' && peek(2) == 'n') {
+                        head += 3;
+                        return FastLexer.TAN;
+                    }
+                }
+                case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                    return scanNumber();
+                }
+                default -> {
+                    // whitespace and unrecognized characters are skipped, like Lexer does
+                }
+            }
+
+            head++;
+        }
+
+        return FastLexer.EOL;
+    }
+
+    // digits are moved out of the ring as they are consumed, so a number may be longer than the buffer
+    private Token scanNumber() {
+        number.setLength(0);
+
+        while (isDigit(peek(0))) {
+            number.append(ring[(int) (head++ & mask)]);
+        }
+        if (peek(0) == '.' && isDigit(peek(1))) {
+            number.append('.');
+            head++;
+            while (isDigit(peek(0))) {
+                number.append(ring[(int) (head++ & mask)]);
+            }
+        }
+
+        return new Token(TokenType.NUMBER, number.toString());
+    }
+
+    // character `offset` positions ahead of the cursor, -1 past the end of input
+    private int peek(int offset) {
+        while (tail - head <= offset) {
+            if (endOfInput || !fill()) {
+                return -1;
+            }
+        }
+        return ring[(int) ((head + offset) & mask)];
+    }
+
+    private boolean fill() {
+        int free = ring.length - (int) (tail - head);
+        int start = (int) (tail & mask);
+        int length = Math.min(free, ring.length - start);
+
+        try {
+            int read = reader.read(ring, start, length);
+            if (read < 0) {
+                endOfInput = true;
+                return false;
+            }
+            tail += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isDigit(int ch) {
+        return ch >= '0' && ch <= '9';
+    }
+}
@@ -3,10 +3,24 @@ package lab6;
 public class Token {
     private TokenType type;
     private String value;
+    private CharSequence source;
+    private int start;
+    private int end;
 
     public Token(TokenType type, String value) {
         this.type = type;
         this.value = value;
+        this.source = value;
+        this.start = 0;
+        this.end = value.length();
+    }
+
+    // token whose text is source[start, end), the String is only built if getValue() is called
+    public Token(TokenType type, CharSequence source, int start, int end) {
+        this.type = type;
+        this.source = source;
+        this.start = start;
+        this.end = end;
     }
 
     public TokenType getType() {
@@ -14,11 +28,26 @@ public class Token {
     }
 
     public String getValue() {
+        if (value == null) {
+            value = source.subSequence(start, end).toString();
+        }
         return value;
     }
 
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
     @Override
     public String toString() {
-        return String.format("Token(%s, %s)", type, value);
+        return String.format("Token(%s, %s)", type, getValue());
     }
-}
\ No newline at end of file
+}
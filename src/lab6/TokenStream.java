@@ -0,0 +1,6 @@
+package lab6;
+
+// pull-based token source, returns an EOL token once the input is exhausted and keeps returning it
+public interface TokenStream {
+    Token nextToken();
+}